@@ -56,6 +56,7 @@ public class Field<ENTITY extends Entity<ENTITY>, VALUE> {
 	private Icon icon;
 	private boolean editable = true;
 	private boolean required;
+	private boolean sortIndexed;
 	private AbstractField<VALUE> field;
 	private ValueExtractor<ENTITY> valueExtractor;
 	private ValueInjector<ENTITY, VALUE> valueInjector;
@@ -91,6 +92,7 @@ public class Field<ENTITY extends Entity<ENTITY>, VALUE> {
 		this.customField = field.isCustomField();
 		this.editable = field.isEditable();
 		this.required = field.isRequired();
+		this.sortIndexed = field.isSortIndexed();
 		this.valueExtractor = field.getValueExtractor();
 		this.valueInjector = field.getValueInjector();
 		if (index != null) {
@@ -175,6 +177,15 @@ public class Field<ENTITY extends Entity<ENTITY>, VALUE> {
 		return this;
 	}
 
+	public boolean isSortIndexed() {
+		return sortIndexed;
+	}
+
+	public Field<ENTITY, VALUE> setSortIndexed(boolean sortIndexed) {
+		this.sortIndexed = sortIndexed;
+		return this;
+	}
+
 	public AbstractField<VALUE> getField() {
 		return field;
 	}
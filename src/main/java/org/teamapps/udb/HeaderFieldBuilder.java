@@ -26,9 +26,30 @@ import org.teamapps.ux.component.field.FieldEditingMode;
 import org.teamapps.ux.component.field.TextField;
 import org.teamapps.ux.i18n.TeamAppsDictionary;
 import org.teamapps.ux.icon.TeamAppsIconBundle;
+import org.teamapps.ux.session.SessionContext;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class HeaderFieldBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
 
+	private static final ScheduledExecutorService SEARCH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "udb-search-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final SessionContext sessionContext = SessionContext.current();
+	private int debounceDelay = 250;
+	private int maxLatency = 1000;
+	private int minQueryLength = 2;
+
+	private ScheduledFuture<?> pendingQuery;
+	private long pendingSince;
+	private int inputSequence;
+
 	protected HeaderFieldBuilder(ModelBuilderFactory<ENTITY> modelBuilderFactory) {
 		super(modelBuilderFactory);
 	}
@@ -45,10 +66,70 @@ public class HeaderFieldBuilder<ENTITY extends Entity<ENTITY>> extends AbstractB
 		textField.setEditingMode(FieldEditingMode.EDITABLE_IF_FOCUSED);
 		textField.setMinWidth(Length.ofPixels(75));
 		textField.setMaxWidth(Length.ofPixels(250));
-		textField.onTextInput.addListener(query -> getModelBuilderFactory().onFullTextQueryFilterChanged.fire(query));
+		textField.onTextInput.addListener(this::handleTextInput);
 		return textField;
 	}
 
+	private void handleTextInput(String query) {
+		String effectiveQuery = query == null || query.trim().length() < minQueryLength ? null : query;
+		int sequence = ++inputSequence;
+		if (pendingQuery != null) {
+			pendingQuery.cancel(false);
+			pendingQuery = null;
+		}
+		long now = System.currentTimeMillis();
+		if (pendingSince == 0) {
+			pendingSince = now;
+		}
+		long delay = Math.min(debounceDelay, pendingSince + maxLatency - now);
+		if (effectiveQuery == null || delay <= 0) {
+			fireQuery(effectiveQuery);
+		} else {
+			pendingQuery = SEARCH_SCHEDULER.schedule(() -> sessionContext.runWithContext(() -> {
+				if (sequence == inputSequence) {
+					fireQuery(effectiveQuery);
+				}
+			}), delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void fireQuery(String query) {
+		pendingQuery = null;
+		pendingSince = 0;
+		String currentQuery = getModelBuilderFactory().getFullTextQuery();
+		if (currentQuery == null || currentQuery.isBlank() ? query == null : currentQuery.equals(query)) {
+			return;
+		}
+		getModelBuilderFactory().onFullTextQueryFilterChanged.fire(query);
+	}
+
+	public int getDebounceDelay() {
+		return debounceDelay;
+	}
+
+	public HeaderFieldBuilder<ENTITY> setDebounceDelay(int debounceDelay) {
+		this.debounceDelay = debounceDelay;
+		return this;
+	}
+
+	public int getMaxLatency() {
+		return maxLatency;
+	}
+
+	public HeaderFieldBuilder<ENTITY> setMaxLatency(int maxLatency) {
+		this.maxLatency = maxLatency;
+		return this;
+	}
+
+	public int getMinQueryLength() {
+		return minQueryLength;
+	}
+
+	public HeaderFieldBuilder<ENTITY> setMinQueryLength(int minQueryLength) {
+		this.minQueryLength = minQueryLength;
+		return this;
+	}
+
 	public void setSearchHeaderField(View view) {
 		HeaderFieldBuilder<ENTITY> headerFieldBuilder = getModelBuilderFactory().createHeaderFieldBuilder();
 		headerFieldBuilder.attachSearchHeaderField(view);
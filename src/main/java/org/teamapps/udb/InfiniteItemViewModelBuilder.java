@@ -19,10 +19,13 @@
  */
 package org.teamapps.udb;
 
+import org.teamapps.udb.recordset.RecordSet;
 import org.teamapps.universaldb.pojo.Entity;
+import org.teamapps.universaldb.record.EntityBuilder;
 import org.teamapps.ux.component.infiniteitemview.AbstractInfiniteItemViewModel;
 import org.teamapps.ux.component.infiniteitemview.InfiniteItemViewModel;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class InfiniteItemViewModelBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
@@ -40,7 +43,15 @@ public class InfiniteItemViewModelBuilder<ENTITY extends Entity<ENTITY>> extends
 
 			@Override
 			public List<ENTITY> getRecords(int startIndex, int length) {
-				return getModelBuilderFactory().getFinalQuery().execute(startIndex, length, null);
+				RecordSet records = getModelBuilderFactory().getFinalRecords();
+				EntityBuilder<ENTITY> entityBuilder = getModelBuilderFactory().getEntityBuilder();
+				List<ENTITY> entities = new ArrayList<>();
+				int id = records.select(startIndex);
+				while (id >= 0 && entities.size() < length) {
+					entities.add(entityBuilder.build(id));
+					id = records.nextRecord(id + 1);
+				}
+				return entities;
 			}
 		};
 		getModelBuilderFactory().onFinalDataChanged.addListener(() -> itemViewModel.onAllDataChanged.fire());
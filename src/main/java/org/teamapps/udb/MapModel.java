@@ -25,11 +25,13 @@ import org.teamapps.universaldb.index.ColumnType;
 import org.teamapps.universaldb.index.numeric.DoubleIndex;
 import org.teamapps.universaldb.index.numeric.FloatIndex;
 import org.teamapps.universaldb.pojo.Entity;
+import org.teamapps.universaldb.record.EntityBuilder;
 import org.teamapps.ux.component.map.Location;
 import org.teamapps.ux.component.map.Marker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 public class MapModel<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
 
@@ -65,9 +67,9 @@ public class MapModel<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENT
 			lonDouble = (DoubleIndex) longitudeIndex;
 		}
 
-		List<ENTITY> entities = getModelBuilderFactory().getEntities(getModelBuilderFactory().getTimeBitSet());
-		for (ENTITY entity : entities) {
-			int id = entity.getId();
+		EntityBuilder<ENTITY> entityBuilder = getModelBuilderFactory().getEntityBuilder();
+		for (PrimitiveIterator.OfInt iterator = getModelBuilderFactory().getTimeRecords().iterator(); iterator.hasNext(); ) {
+			int id = iterator.nextInt();
 			Location location = null;
 			if (latFloat != null) {
 				location = new Location(latFloat.getValue(id), lonFloat.getValue(id));
@@ -75,7 +77,7 @@ public class MapModel<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENT
 				location = new Location(latDouble.getValue(id), lonDouble.getValue(id));
 			}
 			if (location.getLatitude() != 0) {
-				markers.add(new Marker<>(location, entity, markerOffsetX, markerOffsetY));
+				markers.add(new Marker<>(location, entityBuilder.build(id), markerOffsetX, markerOffsetY));
 			}
 		}
 		return markers;
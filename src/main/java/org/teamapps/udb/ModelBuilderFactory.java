@@ -19,18 +19,23 @@
  */
 package org.teamapps.udb;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.teamapps.data.value.SortDirection;
 import org.teamapps.data.value.Sorting;
 import org.teamapps.databinding.ObservableValue;
 import org.teamapps.databinding.TwoWayBindableValue;
 import org.teamapps.event.Event;
 import org.teamapps.icons.Icon;
+import org.teamapps.udb.cache.ResultCache;
 import org.teamapps.udb.decider.DeciderSet;
 import org.teamapps.udb.explorer.Util;
 import org.teamapps.udb.filter.*;
 import org.teamapps.udb.form.FormBuilder;
 import org.teamapps.udb.grouping.GroupingView;
 import org.teamapps.udb.perspectve.PerspectiveBuilder;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.time.TimestampIndex;
 import org.teamapps.universaldb.index.ColumnIndex;
 import org.teamapps.universaldb.index.IndexType;
 import org.teamapps.universaldb.index.TableIndex;
@@ -46,13 +51,40 @@ import org.teamapps.ux.session.SessionContext;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(ModelBuilderFactory.class);
+
+	public static final int BASE_STAGE = 0;
+	public static final int TIME_STAGE = 1;
+	public static final int GEO_STAGE = 2;
+	public static final int GROUPING_STAGE = 3;
+	public static final int FINAL_STAGE = 4;
+	private static final int NO_PENDING_STAGE = Integer.MAX_VALUE;
+	private static final int FULL_TEXT_CACHE_SIZE = 16;
+
+	private static final ExecutorService QUERY_EXECUTOR = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+		Thread thread = new Thread(runnable, "udb-query-executor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
 	public final Event<TimeIntervalFilter> onTimeIntervalFilterChanged = new Event<>();
 	public final Event<Filter> onGeoFilterChanged = new Event<>();
 	public final Event<Filter> onGroupFilterChanged = new Event<>();
@@ -63,6 +95,8 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 	public final Event<Void> onGeoDataChanged = new Event<>();
 	public final Event<Void> onGroupingDataChanged = new Event<>();
 	public final Event<Void> onFinalDataChanged = new Event<>();
+	public final Event<Integer> onStagesChanged = new Event<>();
+	public final Event<Exception> onComputationFailed = new Event<>();
 
 	public final Event<ENTITY> onRecordSelected = new Event<>();
 
@@ -80,29 +114,53 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 	private AbstractUdbQuery<ENTITY> groupingQuery;
 	private AbstractUdbQuery<ENTITY> finalQuery;
 
-	private BitSet baseBitSet;
-	private BitSet timeBitSet;
-	private BitSet geoBitSet;
-	private BitSet groupingBitSet;
-	private BitSet finalBitSet;
+	private RecordSet baseRecords;
+	private RecordSet timeRecords;
+	private RecordSet geoRecords;
+	private RecordSet groupingRecords;
+	private RecordSet finalRecords;
+	private Function<BitSet, RecordSet> recordSetFactory = RecordSet::of;
 
 	private TimeIntervalFilter timeIntervalFilter;
 	private Filter geoFilter;
 	private Filter groupFilter;
 	private String fullTextQuery;
+	private FilterState appliedFilterState = new FilterState(null, null, null, null);
 
 	private Function<String, Query<ENTITY>> customFulltextQueryProvider;
+	private String baseQuerySignature;
+	private final Map<Filter, String> filterSignatures = Collections.synchronizedMap(new WeakHashMap<>());
+	private final Map<Filter, PrecomputedResult> precomputedResults = Collections.synchronizedMap(new WeakHashMap<>());
+	private final Set<String> timestampIndexedFields = ConcurrentHashMap.newKeySet();
 
 	private List<Field<ENTITY, ?>> fields = new ArrayList<>();
 
 	private NumberFormat numberFormat = NumberFormat.getInstance(SessionContext.current().getLocale());
 
+	private final SessionContext sessionContext = SessionContext.current();
+	private final AtomicLong computationGeneration = new AtomicLong();
+	private boolean asyncExecution;
+	private int pendingStage = NO_PENDING_STAGE;
+	private Future<?> runningComputation;
+
+	private final Map<String, RecordSet> fullTextResultCache = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, RecordSet> eldest) {
+			return size() > FULL_TEXT_CACHE_SIZE;
+		}
+	};
+	private RecordSet fullTextCacheRecords;
+
 
 	public ModelBuilderFactory(Supplier<Query<ENTITY>> querySupplier) {
+		this(querySupplier, null);
+	}
+
+	public ModelBuilderFactory(Supplier<Query<ENTITY>> querySupplier, String baseQuerySignature) {
 		AbstractUdbQuery<ENTITY> udbQuery = (AbstractUdbQuery<ENTITY>) querySupplier.get();
 		tableIndex = udbQuery.getTableIndex();
 		entityBuilder = udbQuery.getEntityBuilder();
-		setBaseQuery(querySupplier);
+		setBaseQuery(querySupplier, baseQuerySignature);
 		onTimeIntervalFilterChanged.addListener(this::updateTimeFilterQuery);
 		onGeoFilterChanged.addListener(this::updateGeoFilterQuery);
 		onGroupFilterChanged.addListener(this::updateGroupingFilterQuery);
@@ -112,17 +170,58 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 
 
 	public void setBaseQuery(Supplier<Query<ENTITY>> querySupplier) {
+		setBaseQuery(querySupplier, null);
+	}
+
+	public void setBaseQuery(Supplier<Query<ENTITY>> querySupplier, String baseQuerySignature) {
 		this.querySupplier = querySupplier;
+		this.baseQuerySignature = baseQuerySignature;
 		baseQuery = (AbstractUdbQuery<ENTITY>) querySupplier.get();
-		baseBitSet = null;
-		updateTimeFilterQuery(timeIntervalFilter);
-		onBaseQueryDataChanged.fire();
+		updateStages(BASE_STAGE);
 	}
 
 	public void setCustomFulltextQueryProvider(Function<String, Query<ENTITY>> customFulltextQueryProvider) {
 		this.customFulltextQueryProvider = customFulltextQueryProvider;
 	}
 
+	public Filter withSignature(Filter filter, String signature) {
+		if (filter != null && signature != null) {
+			filterSignatures.put(filter, signature);
+		}
+		return filter;
+	}
+
+	public Filter withPrecomputedResult(Filter filter, RecordSet upstream, RecordSet result) {
+		if (filter != null && upstream != null && result != null) {
+			precomputedResults.put(filter, new PrecomputedResult(upstream, result));
+		}
+		return filter;
+	}
+
+	public void setRecordSetFactory(Function<BitSet, RecordSet> recordSetFactory) {
+		this.recordSetFactory = recordSetFactory;
+	}
+
+	public ModelBuilderFactory<ENTITY> addTimestampIndex(String... fieldNames) {
+		timestampIndexedFields.addAll(Arrays.asList(fieldNames));
+		for (String fieldName : fieldNames) {
+			TimestampIndex.getTimestampIndex(tableIndex, tableIndex.getColumnIndex(fieldName));
+		}
+		return this;
+	}
+
+	public Set<String> getTimestampIndexedFields() {
+		return timestampIndexedFields;
+	}
+
+	public boolean isAsyncExecution() {
+		return asyncExecution;
+	}
+
+	public void setAsyncExecution(boolean asyncExecution) {
+		this.asyncExecution = asyncExecution;
+	}
+
 	public ModelBuilderFactory<ENTITY> addAllEntityFields() {
 		tableIndex.getColumnIndices().forEach(c -> {
 			if (!c.getName().equals(Table.FIELD_DELETED_BY)  && !c.getName().equals(Table.FIELD_DELETION_DATE)) {
@@ -161,47 +260,270 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 
 	private void updateTimeFilterQuery(TimeIntervalFilter timeIntervalFilter) {
 		this.timeIntervalFilter = timeIntervalFilter;
-		AbstractUdbQuery<ENTITY> query = createTimeIntervalQuery();
-		timeQuery = query;
-		timeBitSet = null;
-		updateGeoFilterQuery(geoFilter);
-		onTimeDataChanged.fire();
+		updateStages(TIME_STAGE);
 	}
 
 	private void updateGeoFilterQuery(Filter geoFilter) {
 		this.geoFilter = geoFilter;
-		AbstractUdbQuery<ENTITY> query = createGeoFiltersQuery();
-		geoQuery = query;
-		geoBitSet = null;
-		updateGroupingFilterQuery(groupFilter);
-		onGeoDataChanged.fire();
+		updateStages(GEO_STAGE);
 	}
 
 	private void updateGroupingFilterQuery(Filter filter) {
 		this.groupFilter = filter;
-		AbstractUdbQuery<ENTITY> query = createGroupingFiltersQuery();
-		groupingQuery = query;
-		groupingBitSet = null;
-		updateAllFiltersAppliedQuery(fullTextQuery);
-		onGroupingDataChanged.fire();
+		updateStages(GROUPING_STAGE);
 	}
 
 	private void updateAllFiltersAppliedQuery(String fullTextQuery) {
 		this.fullTextQuery = fullTextQuery;
-		AbstractUdbQuery<ENTITY> query = createGroupingFiltersQuery();
-		if (fullTextQuery != null && !fullTextQuery.isBlank()) {
-			if (customFulltextQueryProvider != null) {
-				AbstractUdbQuery<ENTITY> fulltextQuery = (AbstractUdbQuery<ENTITY>) customFulltextQueryProvider.apply(fullTextQuery);
-				query.and(fulltextQuery);
-			} else {
-				query.addFullTextQuery(fullTextQuery);
+		updateStages(FINAL_STAGE);
+	}
+
+	private void updateStages(int firstStage) {
+		if (asyncExecution) {
+			computeStagesAsync(firstStage);
+		} else {
+			applyStages(firstStage, null, createFilterState());
+		}
+	}
+
+	private FilterState createFilterState() {
+		return new FilterState(timeIntervalFilter, geoFilter, groupFilter, fullTextQuery);
+	}
+
+	private void applyStages(int firstStage, RecordSet[] results, FilterState filterState) {
+		appliedFilterState = filterState;
+		if (firstStage <= TIME_STAGE) {
+			timeQuery = createTimeIntervalQuery();
+		}
+		if (firstStage <= GEO_STAGE) {
+			geoQuery = createGeoFiltersQuery();
+		}
+		if (firstStage <= GROUPING_STAGE) {
+			groupingQuery = createGroupingFiltersQuery();
+		}
+		finalQuery = createAllFiltersAppliedQuery();
+
+		if (results != null) {
+			baseRecords = results[BASE_STAGE];
+			timeRecords = results[TIME_STAGE];
+			geoRecords = results[GEO_STAGE];
+			groupingRecords = results[GROUPING_STAGE];
+			finalRecords = results[FINAL_STAGE];
+		} else {
+			if (firstStage <= BASE_STAGE) {
+				baseRecords = null;
+			}
+			if (firstStage <= TIME_STAGE) {
+				timeRecords = null;
+			}
+			if (firstStage <= GEO_STAGE) {
+				geoRecords = null;
 			}
+			if (firstStage <= GROUPING_STAGE) {
+				groupingRecords = null;
+			}
+			finalRecords = null;
 		}
 
-		finalQuery = query;
-		finalBitSet = finalQuery.executeToBitSet();
-		recordCount.set(finalBitSet.cardinality());
+		recordCount.set(getFinalRecords().cardinality());
 		onFinalDataChanged.fire();
+		if (firstStage <= GROUPING_STAGE) {
+			onGroupingDataChanged.fire();
+		}
+		if (firstStage <= GEO_STAGE) {
+			onGeoDataChanged.fire();
+		}
+		if (firstStage <= TIME_STAGE) {
+			onTimeDataChanged.fire();
+		}
+		if (firstStage <= BASE_STAGE) {
+			onBaseQueryDataChanged.fire();
+		}
+		onStagesChanged.fire(firstStage);
+	}
+
+	private void computeStagesAsync(int firstStage) {
+		pendingStage = Math.min(pendingStage, firstStage);
+		int stage = pendingStage;
+		long generation = computationGeneration.incrementAndGet();
+		if (runningComputation != null) {
+			runningComputation.cancel(false);
+		}
+		RecordSet[] installed = {baseRecords, timeRecords, geoRecords, groupingRecords, finalRecords};
+		Filter[] filters = {null, createTimeIntervalFilter(), geoFilter, groupFilter, null};
+		String[] signatures = {createStageSignature(BASE_STAGE), createStageSignature(TIME_STAGE), createStageSignature(GEO_STAGE), createStageSignature(GROUPING_STAGE), createStageSignature(FINAL_STAGE)};
+		AbstractUdbQuery<ENTITY> query = baseQuery;
+		TimeIntervalFilter timeFilter = timeIntervalFilter;
+		String fullText = fullTextQuery;
+		Function<String, Query<ENTITY>> fullTextQueryProvider = customFulltextQueryProvider;
+		FilterState filterState = createFilterState();
+		runningComputation = QUERY_EXECUTOR.submit(() -> {
+			try {
+				RecordSet[] results = new RecordSet[FINAL_STAGE + 1];
+				for (int i = BASE_STAGE; i <= FINAL_STAGE; i++) {
+					if (i < stage && installed[i] != null) {
+						results[i] = installed[i];
+						continue;
+					}
+					if (generation != computationGeneration.get()) {
+						return;
+					}
+					results[i] = computeStage(i, i == BASE_STAGE ? null : results[i - 1], query, filters[i], timeFilter, fullText, fullTextQueryProvider, signatures[i]);
+				}
+				sessionContext.runWithContext(() -> {
+					if (generation == computationGeneration.get()) {
+						pendingStage = NO_PENDING_STAGE;
+						runningComputation = null;
+						applyStages(stage, results, filterState);
+					}
+				});
+			} catch (Exception e) {
+				LOGGER.error("Failed to compute query stages for table " + tableIndex.getFQN(), e);
+				sessionContext.runWithContext(() -> {
+					if (generation == computationGeneration.get()) {
+						pendingStage = NO_PENDING_STAGE;
+						runningComputation = null;
+						onComputationFailed.fire(e);
+					}
+				});
+			}
+		});
+	}
+
+	private RecordSet computeStage(int stage, RecordSet upstream) {
+		Filter filter = stage == TIME_STAGE ? createTimeIntervalFilter() : stage == GEO_STAGE ? geoFilter : stage == GROUPING_STAGE ? groupFilter : null;
+		return computeStage(stage, upstream, baseQuery, filter, timeIntervalFilter, fullTextQuery, customFulltextQueryProvider, createStageSignature(stage));
+	}
+
+	private RecordSet computeStage(int stage, RecordSet upstream, AbstractUdbQuery<ENTITY> query, Filter filter, TimeIntervalFilter timeFilter, String fullTextQuery, Function<String, Query<ENTITY>> customFulltextQueryProvider, String signature) {
+		Supplier<RecordSet> loader;
+		if (stage == BASE_STAGE) {
+			loader = () -> recordSetFactory.apply(query.executeToBitSet());
+		} else if (stage == FINAL_STAGE) {
+			loader = () -> applyFullTextQuery(upstream, fullTextQuery, customFulltextQueryProvider);
+		} else if (stage == TIME_STAGE) {
+			loader = () -> applyTimeIntervalFilter(upstream, timeFilter, filter);
+		} else {
+			loader = () -> refine(upstream, filter);
+		}
+		if (signature == null) {
+			return loader.get();
+		}
+		return ResultCache.getInstance().getResult(tableIndex, signature, loader);
+	}
+
+	private String createStageSignature(int stage) {
+		if (baseQuerySignature == null) {
+			return null;
+		}
+		StringBuilder signature = new StringBuilder(baseQuerySignature);
+		if (stage >= TIME_STAGE && timeIntervalFilter != null) {
+			signature.append("|time:").append(timeIntervalFilter.getFieldName()).append(':').append(timeIntervalFilter.getStart()).append(':').append(timeIntervalFilter.getEnd());
+		}
+		if (stage >= GEO_STAGE && geoFilter != null) {
+			String geoSignature = filterSignatures.get(geoFilter);
+			if (geoSignature == null) {
+				return null;
+			}
+			signature.append("|geo:").append(geoSignature);
+		}
+		if (stage >= GROUPING_STAGE && groupFilter != null) {
+			String groupSignature = filterSignatures.get(groupFilter);
+			if (groupSignature == null) {
+				return null;
+			}
+			signature.append("|group:").append(groupSignature);
+		}
+		if (stage >= FINAL_STAGE && fullTextQuery != null && !fullTextQuery.isBlank()) {
+			if (customFulltextQueryProvider != null) {
+				return null;
+			}
+			signature.append("|text:").append(String.join(" ", fullTextQuery.trim().split("\\s+")));
+		}
+		return signature.toString();
+	}
+
+	private Filter createTimeIntervalFilter() {
+		if (timeIntervalFilter == null) {
+			return null;
+		}
+		NumericFilter numericFilter = tableIndex.getColumnIndex(timeIntervalFilter.getFieldName()).getType() == IndexType.INT ? timeIntervalFilter.getIntFilter() : timeIntervalFilter.getFilter();
+		return new NumericQueryFilter(timeIntervalFilter.getFieldName(), numericFilter).createFilter(tableIndex);
+	}
+
+	private RecordSet applyTimeIntervalFilter(RecordSet records, TimeIntervalFilter timeFilter, Filter filter) {
+		if (timeFilter == null || !timestampIndexedFields.contains(timeFilter.getFieldName())) {
+			return refine(records, filter);
+		}
+		TimestampIndex timestampIndex = TimestampIndex.getTimestampIndex(tableIndex, tableIndex.getColumnIndex(timeFilter.getFieldName()));
+		if (timestampIndex == null || !timestampIndex.isReady()) {
+			return refine(records, filter);
+		}
+		return recordSetFactory.apply(timestampIndex.filter(records, timeFilter.getStart(), timeFilter.getEnd()));
+	}
+
+	private RecordSet applyFullTextQuery(RecordSet records, String fullTextQuery, Function<String, Query<ENTITY>> customFulltextQueryProvider) {
+		if (fullTextQuery == null || fullTextQuery.isBlank()) {
+			return records;
+		}
+		if (customFulltextQueryProvider != null) {
+			BitSet result = ((AbstractUdbQuery<ENTITY>) customFulltextQueryProvider.apply(fullTextQuery)).executeToBitSet();
+			result.and(records.toBitSet());
+			return recordSetFactory.apply(result);
+		}
+		return applyFullTextFilter(records, String.join(" ", fullTextQuery.trim().split("\\s+")));
+	}
+
+	private RecordSet applyFullTextFilter(RecordSet records, String query) {
+		synchronized (fullTextResultCache) {
+			if (fullTextCacheRecords != records) {
+				fullTextResultCache.clear();
+				fullTextCacheRecords = records;
+			}
+			RecordSet result = fullTextResultCache.get(query);
+			if (result != null) {
+				return result;
+			}
+			RecordSet upstream = records;
+			int prefixLength = 0;
+			for (Map.Entry<String, RecordSet> entry : fullTextResultCache.entrySet()) {
+				if (entry.getKey().length() > prefixLength && extendsLastTerm(entry.getKey(), query)) {
+					upstream = entry.getValue();
+					prefixLength = entry.getKey().length();
+				}
+			}
+			result = refine(upstream, tableIndex.createFullTextFilter(query));
+			fullTextResultCache.put(query, result);
+			return result;
+		}
+	}
+
+	// The full-text filter ANDs its terms and matches each term as a word prefix, so growing only the
+	// last term can never match a record the shorter query did not. Other edits may widen the result.
+	static boolean extendsLastTerm(String previousQuery, String query) {
+		String[] previousTerms = previousQuery.split(" ");
+		String[] terms = query.split(" ");
+		if (previousTerms.length != terms.length) {
+			return false;
+		}
+		int last = terms.length - 1;
+		for (int i = 0; i < last; i++) {
+			if (!terms[i].equals(previousTerms[i])) {
+				return false;
+			}
+		}
+		return terms[last].startsWith(previousTerms[last]);
+	}
+
+	private RecordSet refine(RecordSet records, Filter filter) {
+		if (filter == null) {
+			return records;
+		}
+		PrecomputedResult precomputedResult = precomputedResults.get(filter);
+		if (precomputedResult != null && precomputedResult.upstream == records) {
+			return precomputedResult.result;
+		}
+		return recordSetFactory.apply(filter.filter(records.toBitSet()));
 	}
 
 	private AbstractUdbQuery<ENTITY> createTimeIntervalQuery() {
@@ -229,6 +551,19 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 		return query;
 	}
 
+	private AbstractUdbQuery<ENTITY> createAllFiltersAppliedQuery() {
+		AbstractUdbQuery<ENTITY> query = createGroupingFiltersQuery();
+		if (fullTextQuery != null && !fullTextQuery.isBlank()) {
+			if (customFulltextQueryProvider != null) {
+				AbstractUdbQuery<ENTITY> fulltextQuery = (AbstractUdbQuery<ENTITY>) customFulltextQueryProvider.apply(fullTextQuery);
+				query.and(fulltextQuery);
+			} else {
+				query.addFullTextQuery(fullTextQuery);
+			}
+		}
+		return query;
+	}
+
 	public ObservableValue<Integer> getRecordCount() {
 		return recordCount;
 	}
@@ -285,39 +620,59 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 		return new PerspectiveBuilder<>(this, entityBuilder, deciderSet);
 	}
 
-	public BitSet getBaseBitSet() {
-		if (baseBitSet == null) {
-			baseBitSet = baseQuery.executeToBitSet();
+	public RecordSet getBaseRecords() {
+		if (baseRecords == null) {
+			baseRecords = computeStage(BASE_STAGE, null);
 		}
-		return baseBitSet;
+		return baseRecords;
 	}
 
-	public BitSet getTimeBitSet() {
-		if (timeBitSet == null) {
-			timeBitSet = timeQuery.executeToBitSet();
+	public RecordSet getTimeRecords() {
+		if (timeRecords == null) {
+			timeRecords = computeStage(TIME_STAGE, getBaseRecords());
 		}
-		return timeBitSet;
+		return timeRecords;
 	}
 
-	public BitSet getGeoBitSet() {
-		if (geoBitSet == null) {
-			geoBitSet = geoQuery.executeToBitSet();
+	public RecordSet getGeoRecords() {
+		if (geoRecords == null) {
+			geoRecords = computeStage(GEO_STAGE, getTimeRecords());
 		}
-		return geoBitSet;
+		return geoRecords;
 	}
 
-	public BitSet getGroupingBitSet() {
-		if (groupingBitSet == null) {
-			groupingBitSet = groupingQuery.executeToBitSet();
+	public RecordSet getGroupingRecords() {
+		if (groupingRecords == null) {
+			groupingRecords = computeStage(GROUPING_STAGE, getGeoRecords());
 		}
-		return groupingBitSet;
+		return groupingRecords;
 	}
 
-	public BitSet getFinalBitSet() {
-		if (finalBitSet == null) {
-			finalBitSet = finalQuery.executeToBitSet();
+	public RecordSet getFinalRecords() {
+		if (finalRecords == null) {
+			finalRecords = computeStage(FINAL_STAGE, getGroupingRecords());
 		}
-		return finalBitSet;
+		return finalRecords;
+	}
+
+	public BitSet getBaseBitSet() {
+		return getBaseRecords().toBitSet();
+	}
+
+	public BitSet getTimeBitSet() {
+		return getTimeRecords().toBitSet();
+	}
+
+	public BitSet getGeoBitSet() {
+		return getGeoRecords().toBitSet();
+	}
+
+	public BitSet getGroupingBitSet() {
+		return getGroupingRecords().toBitSet();
+	}
+
+	public BitSet getFinalBitSet() {
+		return getFinalRecords().toBitSet();
 	}
 
 	public AbstractUdbQuery<ENTITY> getBaseQuery() {
@@ -341,19 +696,19 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 	}
 
 	public Filter getGeoFilter() {
-		return geoFilter;
+		return appliedFilterState.geoFilter;
 	}
 
 	public Filter getGroupFilter() {
-		return groupFilter;
+		return appliedFilterState.groupFilter;
 	}
 
 	public TimeIntervalFilter getTimeIntervalFilter() {
-		return timeIntervalFilter;
+		return appliedFilterState.timeIntervalFilter;
 	}
 
 	public String getFullTextQuery() {
-		return fullTextQuery;
+		return appliedFilterState.fullTextQuery;
 	}
 
 	public TableIndex getTableIndex() {
@@ -377,10 +732,12 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 	}
 
 	public List<ENTITY> getEntities(BitSet recordSet) {
-		List<ENTITY> entities = new ArrayList<>();
-		for (int id = recordSet.nextSetBit(0); id >= 0; id = recordSet.nextSetBit(id + 1)) {
-			entities.add(entityBuilder.build(id));
-		}
+		return getEntities(RecordSet.uncompressed(recordSet));
+	}
+
+	public List<ENTITY> getEntities(RecordSet recordSet) {
+		List<ENTITY> entities = new ArrayList<>(recordSet.cardinality());
+		recordSet.forEach(id -> entities.add(entityBuilder.build(id)));
 		return entities;
 	}
 
@@ -393,6 +750,30 @@ public class ModelBuilderFactory<ENTITY extends Entity<ENTITY>> {
 		}
 	}
 
+	private static class FilterState {
+		private final TimeIntervalFilter timeIntervalFilter;
+		private final Filter geoFilter;
+		private final Filter groupFilter;
+		private final String fullTextQuery;
+
+		private FilterState(TimeIntervalFilter timeIntervalFilter, Filter geoFilter, Filter groupFilter, String fullTextQuery) {
+			this.timeIntervalFilter = timeIntervalFilter;
+			this.geoFilter = geoFilter;
+			this.groupFilter = groupFilter;
+			this.fullTextQuery = fullTextQuery;
+		}
+	}
+
+	private static class PrecomputedResult {
+		private final RecordSet upstream;
+		private final RecordSet result;
+
+		private PrecomputedResult(RecordSet upstream, RecordSet result) {
+			this.upstream = upstream;
+			this.result = result;
+		}
+	}
+
 
 
 }
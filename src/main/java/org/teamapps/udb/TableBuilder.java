@@ -25,10 +25,14 @@ import org.teamapps.ux.component.table.Table;
 import org.teamapps.ux.component.table.TableColumn;
 import org.teamapps.ux.component.table.TableModel;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class TableBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
 
+	private final Set<String> sortIndexedFields = new HashSet<>();
 
 	protected TableBuilder(ModelBuilderFactory<ENTITY> modelBuilderFactory) {
 		super(modelBuilderFactory);
@@ -42,14 +46,24 @@ public class TableBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 		}
 	}
 
+	public TableBuilder<ENTITY> addSortIndex(String... fieldNames) {
+		sortIndexedFields.addAll(Arrays.asList(fieldNames));
+		return this;
+	}
+
 	public Table<ENTITY> build() {
-		TableModel<ENTITY> tableModel = getModelBuilderFactory().createTableModelBuilder().createTableModel();
-		Table<ENTITY> table = new Table<>();
-		table.setModel(tableModel);
 		List<Field<ENTITY, ?>> fields = getFields();
 		if (fields.isEmpty()) {
 			fields = getModelBuilderFactory().getFields();
 		}
+		TableModelBuilder<ENTITY> tableModelBuilder = getModelBuilderFactory().createTableModelBuilder();
+		tableModelBuilder.addSortIndex(sortIndexedFields.toArray(new String[0]));
+		fields.stream()
+				.filter(Field::isSortIndexed)
+				.forEach(field -> tableModelBuilder.addSortIndex(field.getName()));
+		TableModel<ENTITY> tableModel = tableModelBuilder.createTableModel();
+		Table<ENTITY> table = new Table<>();
+		table.setModel(tableModel);
 		for (Field<ENTITY, ?> field : fields) {
 			TableColumn<ENTITY> column = createColumn(field);
 			if (column != null) {
@@ -21,23 +21,41 @@ package org.teamapps.udb;
 
 import org.teamapps.data.value.SortDirection;
 import org.teamapps.data.value.Sorting;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.sort.RecordSorter;
+import org.teamapps.udb.sort.SortIndex;
+import org.teamapps.universaldb.index.ColumnIndex;
 import org.teamapps.universaldb.pojo.Entity;
+import org.teamapps.universaldb.record.EntityBuilder;
 import org.teamapps.ux.component.table.AbstractTableModel;
 import org.teamapps.ux.component.table.TableModel;
+import org.teamapps.ux.session.SessionContext;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
 
 public class TableModelBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY>{
 
+	private int initialSortWindow = 256;
+	private int fullSortRatio = 8;
+	private final Set<String> sortIndexedFields = new HashSet<>();
+
 	protected TableModelBuilder(ModelBuilderFactory<ENTITY> modelBuilderFactory) {
 		super(modelBuilderFactory);
 	}
 
 	public TableModel<ENTITY> createTableModel() {
 		AbstractTableModel<ENTITY> tableModel = new AbstractTableModel<ENTITY>() {
-			private List<ENTITY> entities;
-			private Sorting lastSorting;
+			private RecordSet sortedRecords;
+			private String sortFieldName;
+			private boolean sortAscending;
+			private int[] sortedIds;
+
 			@Override
 			public int getCount() {
 				return getModelBuilderFactory().getRecordCount().get();
@@ -45,19 +63,82 @@ public class TableModelBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBu
 
 			@Override
 			public List<ENTITY> getRecords(int startIndex, int length, Sorting sorting) {
-				if (entities != null || sorting != lastSorting) {
-					if (sorting == null || sorting.getFieldName() == null) {
-						entities = getModelBuilderFactory().getEntities(getModelBuilderFactory().getFinalBitSet());
-					} else {
-						org.teamapps.universaldb.query.Sorting convertedSorting = getModelBuilderFactory().convertSorting(sorting);
-						entities = getModelBuilderFactory().getFinalQuery().execute(sorting.getFieldName(), sorting.getSorting() == SortDirection.ASC);
+				RecordSet records = getModelBuilderFactory().getFinalRecords();
+				String fieldName = sorting != null ? sorting.getFieldName() : null;
+				boolean ascending = sorting == null || sorting.getSorting() == SortDirection.ASC;
+				int requiredCount = startIndex + length;
+				if (sortedIds == null || records != sortedRecords || !Objects.equals(fieldName, sortFieldName) || ascending != sortAscending) {
+					sortedIds = getSortedIds(records, fieldName, ascending, Math.max(initialSortWindow, requiredCount));
+					sortedRecords = records;
+					sortFieldName = fieldName;
+					sortAscending = ascending;
+				} else if (requiredCount > sortedIds.length && sortedIds.length < records.cardinality()) {
+					int windowSize = sortedIds.length * 2;
+					while (windowSize < requiredCount) {
+						windowSize *= 2;
 					}
-					lastSorting = sorting;
+					sortedIds = getSortedIds(records, fieldName, ascending, windowSize);
+				}
+				EntityBuilder<ENTITY> entityBuilder = getModelBuilderFactory().getEntityBuilder();
+				int endIndex = Math.min(sortedIds.length, startIndex + length);
+				List<ENTITY> entities = new ArrayList<>(Math.max(0, endIndex - startIndex));
+				for (int i = startIndex; i < endIndex; i++) {
+					entities.add(entityBuilder.build(sortedIds[i]));
 				}
-				return entities.stream().skip(startIndex).limit(length).collect(Collectors.toList());
+				return entities;
 			}
 		};
 		getModelBuilderFactory().onFinalDataChanged.addListener(() -> tableModel.onAllDataChanged.fire());
 		return tableModel;
 	}
+
+	public int getInitialSortWindow() {
+		return initialSortWindow;
+	}
+
+	public TableModelBuilder<ENTITY> setInitialSortWindow(int initialSortWindow) {
+		this.initialSortWindow = Math.max(1, initialSortWindow);
+		return this;
+	}
+
+	public int getFullSortRatio() {
+		return fullSortRatio;
+	}
+
+	public TableModelBuilder<ENTITY> setFullSortRatio(int fullSortRatio) {
+		this.fullSortRatio = Math.max(1, fullSortRatio);
+		return this;
+	}
+
+	public TableModelBuilder<ENTITY> addSortIndex(String... fieldNames) {
+		sortIndexedFields.addAll(Arrays.asList(fieldNames));
+		return this;
+	}
+
+	public Set<String> getSortIndexedFields() {
+		return sortIndexedFields;
+	}
+
+	private int[] getSortedIds(RecordSet records, String fieldName, boolean ascending, int windowSize) {
+		if (fieldName == null || fieldName.isEmpty()) {
+			return RecordSorter.toArray(records);
+		}
+		ColumnIndex index = getModelBuilderFactory().getIndex(fieldName);
+		int[] sortedIds = null;
+		if (index != null) {
+			Locale locale = SessionContext.current().getLocale();
+			SortIndex sortIndex = sortIndexedFields.contains(fieldName) ? SortIndex.getSortIndex(getModelBuilderFactory().getTableIndex(), index, locale) : null;
+			if (sortIndex != null) {
+				sortedIds = sortIndex.sort(records, ascending);
+			} else if ((long) windowSize * fullSortRatio < records.cardinality()) {
+				sortedIds = RecordSorter.sortTopK(records, index, ascending, locale, windowSize);
+			} else {
+				sortedIds = RecordSorter.sort(records, index, ascending, locale);
+			}
+		}
+		if (sortedIds == null) {
+			sortedIds = getModelBuilderFactory().getFinalQuery().execute(fieldName, ascending).stream().mapToInt(Entity::getId).toArray();
+		}
+		return sortedIds;
+	}
 }
@@ -23,6 +23,7 @@ import org.teamapps.common.format.Color;
 import org.teamapps.common.format.RgbaColor;
 import org.teamapps.event.Event;
 import org.teamapps.udb.filter.TimeIntervalFilter;
+import org.teamapps.udb.time.MeasureAggregation;
 import org.teamapps.universaldb.index.ColumnType;
 import org.teamapps.universaldb.pojo.Entity;
 import org.teamapps.ux.application.view.View;
@@ -46,6 +47,9 @@ public class TimeGraphBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBui
 	public Event<String> onQueryFieldChanged = new Event<>();
 
 	private ScaleType scaleType = ScaleType.LOG10;
+	private boolean useTimeCube;
+	private String measureFieldName;
+	private MeasureAggregation measureAggregation = MeasureAggregation.COUNT;
 	private LineChartLine baseLine;
 	private LineChartLine groupingLine;
 	private LineChartLine geoFilterLine;
@@ -78,6 +82,8 @@ public class TimeGraphBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBui
 			fields = getModelBuilderFactory().getFields();
 		}
 		TimeGraphModelBuilder<ENTITY> timeGraphModelBuilder = new TimeGraphModelBuilder<>(getModelBuilderFactory(), fields);
+		timeGraphModelBuilder.setUseTimeCube(useTimeCube);
+		timeGraphModelBuilder.setMeasure(measureFieldName, measureAggregation);
 		TimeGraphModel timeGraphModel = timeGraphModelBuilder.build();
 		TimeGraph timeGraph = new TimeGraph(timeGraphModel);
 		updateLines(timeGraph);
@@ -153,6 +159,17 @@ public class TimeGraphBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBui
 		return this;
 	}
 
+	public TimeGraphBuilder<ENTITY> setMeasure(String measureFieldName, MeasureAggregation measureAggregation) {
+		this.measureFieldName = measureFieldName;
+		this.measureAggregation = measureAggregation;
+		return this;
+	}
+
+	public TimeGraphBuilder<ENTITY> setUseTimeCube(boolean useTimeCube) {
+		this.useTimeCube = useTimeCube;
+		return this;
+	}
+
 	public LineChartLine getBaseLine() {
 		return baseLine;
 	}
@@ -19,26 +19,31 @@
  */
 package org.teamapps.udb;
 
+import org.teamapps.udb.grouping.HistogramAggregator;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.time.BucketedTimeGraphModel;
+import org.teamapps.udb.time.MeasureAggregation;
+import org.teamapps.udb.time.TimeCube;
 import org.teamapps.universaldb.index.ColumnIndex;
 import org.teamapps.universaldb.index.ColumnType;
-import org.teamapps.universaldb.index.IndexType;
-import org.teamapps.universaldb.index.numeric.IntegerIndex;
-import org.teamapps.universaldb.index.numeric.LongIndex;
 import org.teamapps.universaldb.pojo.Entity;
-import org.teamapps.universaldb.schema.Table;
 import org.teamapps.ux.component.timegraph.TimeGraphModel;
-import org.teamapps.ux.component.timegraph.partitioning.StaticPartitioningTimeGraphModel;
 import org.teamapps.ux.session.SessionContext;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.IntToDoubleFunction;
 import java.util.stream.Collectors;
 
 public class TimeGraphModelBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
 
 	private String queryFieldName;
-	private StaticPartitioningTimeGraphModel timeGraphModel;
+	private BucketedTimeGraphModel timeGraphModel;
+	private boolean useTimeCube;
+	private String measureFieldName;
+	private IntToDoubleFunction measureReader;
+	private MeasureAggregation measureAggregation = MeasureAggregation.COUNT;
 
 	protected TimeGraphModelBuilder(ModelBuilderFactory<ENTITY> modelBuilderFactory) {
 		super(modelBuilderFactory);
@@ -58,7 +63,7 @@ public class TimeGraphModelBuilder<ENTITY extends Entity<ENTITY>> extends Abstra
 	}
 
 	private void init() {
-		timeGraphModel = StaticPartitioningTimeGraphModel.create(SessionContext.current().getTimeZone());
+		timeGraphModel = new BucketedTimeGraphModel(SessionContext.current().getTimeZone());
 		List<Field<ENTITY, ?>> dateFields = getDateFields();
 		if (!dateFields.isEmpty()) {
 			queryFieldName = dateFields.get(0).getName();
@@ -84,72 +89,86 @@ public class TimeGraphModelBuilder<ENTITY extends Entity<ENTITY>> extends Abstra
 
 	public void setQueryFieldName(String fieldName) {
 		this.queryFieldName = fieldName;
-		updateBaseData();
-		updateGroupFilterData();
-		updateFullTextFilterData();
+		updateSeries(ModelBuilderFactory.BASE_STAGE);
 	}
 
 	public String getQueryFieldName() {
 		return queryFieldName;
 	}
 
-	private void updateBaseData() {
-		BitSet recordSet = getModelBuilderFactory().getBaseBitSet();
-		long[] timestamps = queryTimestamps(recordSet, queryFieldName);
-		timeGraphModel.setEventTimestampsForDataSeriesId(TimeGraphBuilder.BASE_DATA_SERIES, timestamps);
+	public TimeGraphModelBuilder<ENTITY> setMeasure(String measureFieldName, MeasureAggregation measureAggregation) {
+		if (measureReader == null || !Objects.equals(this.measureFieldName, measureFieldName)) {
+			ColumnIndex measureIndex = measureFieldName != null ? getModelBuilderFactory().getTableIndex().getColumnIndex(measureFieldName) : null;
+			measureReader = measureIndex != null ? HistogramAggregator.createValueReader(measureIndex) : null;
+		}
+		this.measureFieldName = measureFieldName;
+		this.measureAggregation = measureAggregation;
+		timeGraphModel.setMeasure(measureReader, measureAggregation);
+		return this;
 	}
 
-	private void updateGeoFilterData() {
-		if (getModelBuilderFactory().getGeoFilter() != null) {
-			BitSet recordSet = getModelBuilderFactory().getGeoBitSet();
-			long[] timestamps = queryTimestamps(recordSet, queryFieldName);
-			timeGraphModel.setEventTimestampsForDataSeriesId(TimeGraphBuilder.GEO_FILTER_SERIES, timestamps);
-		}
+	public String getMeasureFieldName() {
+		return measureFieldName;
 	}
 
-	private void updateGroupFilterData() {
-		if (getModelBuilderFactory().getGroupFilter() != null) {
-			BitSet recordSet = getModelBuilderFactory().getGroupingBitSet();
-			long[] timestamps = queryTimestamps(recordSet, queryFieldName);
-			timeGraphModel.setEventTimestampsForDataSeriesId(TimeGraphBuilder.GROUP_FILTER_SERIES, timestamps);
-		}
+	public MeasureAggregation getMeasureAggregation() {
+		return measureAggregation;
 	}
 
-	private void updateFullTextFilterData() {
-		if (getModelBuilderFactory().getFullTextQuery() != null && !getModelBuilderFactory().getFullTextQuery().isBlank()) {
-			BitSet recordSet = getModelBuilderFactory().getFinalBitSet();
-			long[] timestamps = queryTimestamps(recordSet, queryFieldName);
-			timeGraphModel.setEventTimestampsForDataSeriesId(TimeGraphBuilder.FULL_TEXT_DATA_SERIES, timestamps);
-		}
+	public boolean isUseTimeCube() {
+		return useTimeCube;
 	}
 
-	private long[] queryTimestamps(BitSet recordSet, String fieldName) {
-		ColumnIndex columnIndex = getModelBuilderFactory().getTableIndex().getColumnIndex(fieldName);
-		IntegerIndex integerIndex = null;
-		LongIndex longIndex = null;
-		if (columnIndex.getType() == IndexType.INT) {
-			integerIndex = (IntegerIndex) columnIndex;
-		} else {
-			longIndex = (LongIndex) columnIndex;
+	public TimeGraphModelBuilder<ENTITY> setUseTimeCube(boolean useTimeCube) {
+		this.useTimeCube = useTimeCube;
+		return this;
+	}
+
+	private void updateSeries(int firstStage) {
+		ModelBuilderFactory<ENTITY> factory = getModelBuilderFactory();
+		List<String> seriesIds = new ArrayList<>();
+		List<RecordSet> nestedRecords = new ArrayList<>();
+		if (firstStage <= ModelBuilderFactory.BASE_STAGE) {
+			seriesIds.add(TimeGraphBuilder.BASE_DATA_SERIES);
+			nestedRecords.add(factory.getBaseRecords());
 		}
-		ArrayList<Long> values = new ArrayList<>();
-		for (int id = recordSet.nextSetBit(0); id >= 0; id = recordSet.nextSetBit(id + 1)) {
-			long value = integerIndex != null ? integerIndex.getValue(id) * 1000L : longIndex.getValue(id);
-			if (value != 0) {
-				values.add(value);
+		if (firstStage <= ModelBuilderFactory.GEO_STAGE) {
+			if (factory.getGeoFilter() != null) {
+				seriesIds.add(TimeGraphBuilder.GEO_FILTER_SERIES);
+				nestedRecords.add(factory.getGeoRecords());
+			} else {
+				timeGraphModel.removeSeries(TimeGraphBuilder.GEO_FILTER_SERIES);
 			}
 		}
-		return values.stream().mapToLong(value -> value.longValue()).toArray();
+		if (firstStage <= ModelBuilderFactory.GROUPING_STAGE) {
+			if (factory.getGroupFilter() != null) {
+				seriesIds.add(TimeGraphBuilder.GROUP_FILTER_SERIES);
+				nestedRecords.add(factory.getGroupingRecords());
+			} else {
+				timeGraphModel.removeSeries(TimeGraphBuilder.GROUP_FILTER_SERIES);
+			}
+		}
+		if (factory.getFullTextQuery() != null && !factory.getFullTextQuery().isBlank()) {
+			seriesIds.add(TimeGraphBuilder.FULL_TEXT_DATA_SERIES);
+			nestedRecords.add(factory.getFinalRecords());
+		} else {
+			timeGraphModel.removeSeries(TimeGraphBuilder.FULL_TEXT_DATA_SERIES);
+		}
+		if (seriesIds.isEmpty() || queryFieldName == null) {
+			return;
+		}
+		ColumnIndex columnIndex = factory.getTableIndex().getColumnIndex(queryFieldName);
+		TimeCube timeCube = useTimeCube ? TimeCube.getTimeCube(factory.getTableIndex(), columnIndex, SessionContext.current().getTimeZone()) : null;
+		if (timeCube != null) {
+			timeGraphModel.setNestedSeries(seriesIds, nestedRecords, timeCube);
+		} else {
+			timeGraphModel.setNestedSeries(seriesIds, nestedRecords, TimeCube.createTimestampReader(columnIndex));
+		}
 	}
 
 	public TimeGraphModel build() {
-		getModelBuilderFactory().onBaseQueryDataChanged.addListener(() -> updateBaseData());
-		getModelBuilderFactory().onGeoDataChanged.addListener(() -> updateGeoFilterData());
-		getModelBuilderFactory().onGroupingDataChanged.addListener(() -> updateGroupFilterData());
-		getModelBuilderFactory().onFinalDataChanged.addListener(() -> updateFullTextFilterData());
-		updateBaseData();
-		updateGroupFilterData();
-		updateFullTextFilterData();
+		getModelBuilderFactory().onStagesChanged.addListener(firstStage -> updateSeries(firstStage));
+		updateSeries(ModelBuilderFactory.BASE_STAGE);
 		return timeGraphModel;
 	}
 
@@ -0,0 +1,163 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.cache;
+
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public class ResultCache {
+
+	private static final ResultCache INSTANCE = new ResultCache();
+
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private long maxBytes = 256L * 1024 * 1024;
+	private long maxAge = 60_000;
+	private long usedBytes;
+
+	public static ResultCache getInstance() {
+		return INSTANCE;
+	}
+
+	public RecordSet getResult(TableIndex tableIndex, String signature, Supplier<RecordSet> loader) {
+		if (!TableChangeTracker.hasWriteSignal(tableIndex)) {
+			return loader.get();
+		}
+		return getResult(tableIndex.getFQN() + "/" + signature, TableChangeTracker.getModificationCount(tableIndex), tableIndex.getCount(), loader);
+	}
+
+	RecordSet getResult(String key, long modificationCount, long recordCount, Supplier<RecordSet> loader) {
+		long now = System.currentTimeMillis();
+		CacheEntry entry;
+		boolean load = false;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null || !entry.isValid(modificationCount, recordCount, maxAge > 0 ? now - maxAge : Long.MIN_VALUE)) {
+				if (entry != null) {
+					removeEntry(key, entry);
+				}
+				entry = new CacheEntry(modificationCount, recordCount, now);
+				entries.put(key, entry);
+				load = true;
+			}
+		}
+		if (load) {
+			try {
+				RecordSet result = loader.get();
+				entry.result.complete(result);
+				synchronized (this) {
+					if (entries.get(key) == entry) {
+						entry.bytes = result.getSizeInBytes();
+						usedBytes += entry.bytes;
+						evict();
+					}
+				}
+			} catch (RuntimeException e) {
+				entry.result.completeExceptionally(e);
+				synchronized (this) {
+					removeEntry(key, entry);
+				}
+				throw e;
+			}
+		}
+		return entry.result.join();
+	}
+
+	public void invalidate(TableIndex tableIndex) {
+		invalidate(tableIndex.getFQN() + "/");
+	}
+
+	synchronized void invalidate(String prefix) {
+		Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<String, CacheEntry> entry = iterator.next();
+			if (entry.getKey().startsWith(prefix)) {
+				usedBytes -= entry.getValue().bytes;
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		usedBytes = 0;
+	}
+
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	public synchronized long getMaxAge() {
+		return maxAge;
+	}
+
+	public synchronized void setMaxAge(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	private void removeEntry(String key, CacheEntry entry) {
+		if (entries.remove(key, entry)) {
+			usedBytes -= entry.bytes;
+		}
+	}
+
+	private void evict() {
+		Iterator<CacheEntry> iterator = entries.values().iterator();
+		while (usedBytes > maxBytes && iterator.hasNext()) {
+			CacheEntry entry = iterator.next();
+			if (entry.result.isDone()) {
+				usedBytes -= entry.bytes;
+				iterator.remove();
+			}
+		}
+	}
+
+	private static class CacheEntry {
+		private final CompletableFuture<RecordSet> result = new CompletableFuture<>();
+		private final long modificationCount;
+		private final long recordCount;
+		private final long creationTime;
+		private long bytes;
+
+		private CacheEntry(long modificationCount, long recordCount, long creationTime) {
+			this.modificationCount = modificationCount;
+			this.recordCount = recordCount;
+			this.creationTime = creationTime;
+		}
+
+		private boolean isValid(long modificationCount, long recordCount, long minCreationTime) {
+			return this.modificationCount == modificationCount && this.recordCount == recordCount && creationTime >= minCreationTime && !result.isCompletedExceptionally();
+		}
+	}
+}
@@ -0,0 +1,259 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.LongIndex;
+import org.teamapps.universaldb.schema.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+
+public class TableChangeTracker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TableChangeTracker.class);
+	private static final Map<TableIndex, AtomicLong> MODIFICATION_COUNTS = new ConcurrentHashMap<>();
+	private static final Map<TableIndex, List<TableChangeListener>> LISTENERS = new ConcurrentHashMap<>();
+	private static final Map<TableIndex, WriteMonitor> WRITE_MONITORS = new HashMap<>();
+	private static final long POLL_INTERVAL = 1000;
+	private static final long MAX_IDLE_TIME = 10 * 60_000L;
+	private static final int MAX_RECORD_EVENTS = 10_000;
+	private static final int SLICE_SIZE = 1 << 16;
+	private static final int SLICES_PER_POLL = 4;
+	private static final ScheduledExecutorService WRITE_MONITOR_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "udb-write-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		WRITE_MONITOR_EXECUTOR.scheduleWithFixedDelay(TableChangeTracker::pollWrites, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	public interface TableChangeListener {
+		void handleRecordChanged(int recordId);
+
+		void handleTableChanged();
+
+		default void handleTrackingStopped() {
+			handleTableChanged();
+		}
+	}
+
+	public static void recordChanged(TableIndex tableIndex, int recordId) {
+		getCounter(tableIndex).incrementAndGet();
+		for (TableChangeListener listener : getListeners(tableIndex)) {
+			listener.handleRecordChanged(recordId);
+		}
+	}
+
+	public static void tableChanged(TableIndex tableIndex) {
+		getCounter(tableIndex).incrementAndGet();
+		for (TableChangeListener listener : getListeners(tableIndex)) {
+			listener.handleTableChanged();
+		}
+	}
+
+	public static void addChangeListener(TableIndex tableIndex, TableChangeListener listener) {
+		getListeners(tableIndex).add(listener);
+	}
+
+	public static void removeChangeListener(TableIndex tableIndex, TableChangeListener listener) {
+		getListeners(tableIndex).remove(listener);
+	}
+
+	public static boolean hasWriteSignal(TableIndex tableIndex) {
+		return getWriteMonitor(tableIndex) != null;
+	}
+
+	public static long getModificationCount(TableIndex tableIndex) {
+		return getCounter(tableIndex).get();
+	}
+
+	private static synchronized WriteMonitor getWriteMonitor(TableIndex tableIndex) {
+		WriteMonitor writeMonitor = WRITE_MONITORS.get(tableIndex);
+		if (writeMonitor == null) {
+			ColumnIndex modificationIndex = tableIndex.getColumnIndex(Table.FIELD_MODIFICATION_DATE);
+			if (modificationIndex == null || (modificationIndex.getType() != IndexType.INT && modificationIndex.getType() != IndexType.LONG)) {
+				return null;
+			}
+			writeMonitor = new WriteMonitor(tableIndex, modificationIndex);
+			WRITE_MONITORS.put(tableIndex, writeMonitor);
+		}
+		writeMonitor.lastAccess = System.currentTimeMillis();
+		return writeMonitor;
+	}
+
+	private static synchronized List<WriteMonitor> getActiveWriteMonitors() {
+		long minAccess = System.currentTimeMillis() - MAX_IDLE_TIME;
+		List<WriteMonitor> writeMonitors = new ArrayList<>();
+		Iterator<WriteMonitor> iterator = WRITE_MONITORS.values().iterator();
+		while (iterator.hasNext()) {
+			WriteMonitor writeMonitor = iterator.next();
+			if (writeMonitor.lastAccess < minAccess) {
+				iterator.remove();
+				stopTracking(writeMonitor.tableIndex);
+			} else {
+				writeMonitors.add(writeMonitor);
+			}
+		}
+		return writeMonitors;
+	}
+
+	private static void stopTracking(TableIndex tableIndex) {
+		getCounter(tableIndex).incrementAndGet();
+		List<TableChangeListener> listeners = LISTENERS.remove(tableIndex);
+		if (listeners != null) {
+			for (TableChangeListener listener : listeners) {
+				listener.handleTrackingStopped();
+			}
+		}
+	}
+
+	private static void pollWrites() {
+		for (WriteMonitor writeMonitor : getActiveWriteMonitors()) {
+			try {
+				BitSet changedRecords = writeMonitor.scan();
+				if (changedRecords == null || changedRecords.cardinality() > MAX_RECORD_EVENTS) {
+					tableChanged(writeMonitor.tableIndex);
+				} else {
+					for (int id = changedRecords.nextSetBit(0); id >= 0; id = changedRecords.nextSetBit(id + 1)) {
+						recordChanged(writeMonitor.tableIndex, id);
+					}
+				}
+			} catch (Exception e) {
+				LOGGER.error("Failed to check table " + writeMonitor.tableIndex.getFQN() + " for writes", e);
+			}
+		}
+	}
+
+	private static List<TableChangeListener> getListeners(TableIndex tableIndex) {
+		return LISTENERS.computeIfAbsent(tableIndex, t -> new CopyOnWriteArrayList<>());
+	}
+
+	private static AtomicLong getCounter(TableIndex tableIndex) {
+		return MODIFICATION_COUNTS.computeIfAbsent(tableIndex, t -> new AtomicLong());
+	}
+
+	private static class WriteMonitor {
+		private final TableIndex tableIndex;
+		private final IntToLongFunction modificationReader;
+		private final long millisPerUnit;
+		private BitSet records;
+		private int recordCount;
+		private int maxId;
+		private long[] sliceScanTimes;
+		private int nextSlice;
+		private volatile long lastAccess;
+
+		private WriteMonitor(TableIndex tableIndex, ColumnIndex modificationIndex) {
+			this.tableIndex = tableIndex;
+			if (modificationIndex.getType() == IndexType.INT) {
+				IntegerIndex integerIndex = (IntegerIndex) modificationIndex;
+				this.modificationReader = integerIndex::getValue;
+				this.millisPerUnit = 1000;
+			} else {
+				LongIndex longIndex = (LongIndex) modificationIndex;
+				this.modificationReader = longIndex::getValue;
+				this.millisPerUnit = 1;
+			}
+			reset(System.currentTimeMillis() / millisPerUnit);
+		}
+
+		private void reset(long scanTime) {
+			records = (BitSet) tableIndex.getRecordBitSet().clone();
+			recordCount = records.cardinality();
+			maxId = records.length();
+			sliceScanTimes = new long[0];
+			resizeSlices(scanTime);
+		}
+
+		private void resizeSlices(long scanTime) {
+			int slices = (maxId + SLICE_SIZE - 1) / SLICE_SIZE;
+			if (slices > sliceScanTimes.length) {
+				int oldSlices = sliceScanTimes.length;
+				sliceScanTimes = Arrays.copyOf(sliceScanTimes, slices);
+				Arrays.fill(sliceScanTimes, oldSlices, slices, scanTime);
+			}
+		}
+
+		private synchronized BitSet scan() {
+			long scanTime = System.currentTimeMillis() / millisPerUnit;
+			BitSet currentRecords = tableIndex.getRecordBitSet();
+			int currentMaxId = currentRecords.length();
+			int addedCount = 0;
+			BitSet changedRecords = new BitSet();
+			for (int id = currentRecords.nextSetBit(maxId); id >= 0 && id < currentMaxId; id = currentRecords.nextSetBit(id + 1)) {
+				changedRecords.set(id);
+				records.set(id);
+				addedCount++;
+			}
+			if (currentMaxId < maxId || tableIndex.getCount() != recordCount + addedCount) {
+				reset(scanTime);
+				return null;
+			}
+			recordCount += addedCount;
+			maxId = currentMaxId;
+			resizeSlices(scanTime);
+			for (int i = 0; i < Math.min(SLICES_PER_POLL, sliceScanTimes.length); i++) {
+				int slice = nextSlice++ % sliceScanTimes.length;
+				scanSlice(slice, currentRecords, changedRecords);
+				sliceScanTimes[slice] = scanTime;
+			}
+			nextSlice %= Math.max(1, sliceScanTimes.length);
+			return changedRecords;
+		}
+
+		private void scanSlice(int slice, BitSet currentRecords, BitSet changedRecords) {
+			int from = slice * SLICE_SIZE;
+			int to = Math.min(maxId, from + SLICE_SIZE);
+			long since = sliceScanTimes[slice];
+			BitSet sliceRecords = currentRecords.get(from, to);
+			BitSet movedRecords = records.get(from, to);
+			movedRecords.xor(sliceRecords);
+			for (int i = movedRecords.nextSetBit(0); i >= 0; i = movedRecords.nextSetBit(i + 1)) {
+				changedRecords.set(from + i);
+				records.set(from + i, sliceRecords.get(i));
+			}
+			for (int i = sliceRecords.nextSetBit(0); i >= 0; i = sliceRecords.nextSetBit(i + 1)) {
+				if (modificationReader.applyAsLong(from + i) >= since) {
+					changedRecords.set(from + i);
+				}
+			}
+		}
+	}
+}
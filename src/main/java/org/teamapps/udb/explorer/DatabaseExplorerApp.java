@@ -199,7 +199,7 @@ public class DatabaseExplorerApp {
 
 		leftBottomView.setSize(ViewSize.ofAbsoluteWidth(250));
 
-		ModelBuilderFactory factory = new ModelBuilderFactory(() -> createQuery(tableIndex));
+		ModelBuilderFactory factory = new ModelBuilderFactory(() -> createQuery(tableIndex), "all");
 		factory.addAllEntityFields();
 		factory.createTableBuilder().createAndAttachToViewWithHeaderField(centerView);
 
@@ -24,4 +24,5 @@ public enum FilterType {
 	NUMERIC,
 	TEXT,
 	BOOLEAN,
+	MULTI_REFERENCE,
 }
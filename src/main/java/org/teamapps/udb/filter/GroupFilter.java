@@ -20,17 +20,39 @@
 package org.teamapps.udb.filter;
 
 import org.teamapps.udb.grouping.GroupingNode;
+import org.teamapps.udb.grouping.NumericRange;
+
+import java.time.ZoneId;
 
 public class GroupFilter {
 
 	private final AbstractQueryFilter queryFilter;
 	private final String caption;
 	private final GroupingNode groupingNode;
+	private final Object key;
+	private final boolean keyed;
+	private final ZoneId zoneId;
 
 	public GroupFilter(AbstractQueryFilter queryFilter, String caption, GroupingNode groupingNode) {
 		this.queryFilter = queryFilter;
 		this.caption = caption;
 		this.groupingNode = groupingNode;
+		this.key = null;
+		this.keyed = false;
+		this.zoneId = null;
+	}
+
+	public GroupFilter(AbstractQueryFilter queryFilter, String caption, GroupingNode groupingNode, Object key) {
+		this(queryFilter, caption, groupingNode, key, null);
+	}
+
+	public GroupFilter(AbstractQueryFilter queryFilter, String caption, GroupingNode groupingNode, Object key, ZoneId zoneId) {
+		this.queryFilter = queryFilter;
+		this.caption = caption;
+		this.groupingNode = groupingNode;
+		this.key = key;
+		this.keyed = true;
+		this.zoneId = zoneId;
 	}
 
 	public AbstractQueryFilter getQueryFilter() {
@@ -47,4 +69,44 @@ public class GroupFilter {
 	public GroupingNode getGroupingNode() {
 		return groupingNode;
 	}
+
+	public Object getKey() {
+		return key;
+	}
+
+	public boolean isKeyed() {
+		return keyed;
+	}
+
+	public ZoneId getZoneId() {
+		return zoneId;
+	}
+
+	public String getSignature() {
+		if (!keyed) {
+			return null;
+		}
+		StringBuilder signature = new StringBuilder(queryFilter.getFieldName()).append(':').append(groupingNode.getNodeType()).append(':');
+		if (zoneId != null) {
+			signature.append(zoneId.getId()).append(':');
+		}
+		if (key == null) {
+			signature.append("null");
+		} else if (key instanceof String) {
+			String text = (String) key;
+			signature.append('s').append(text.length()).append(':').append(text);
+		} else if (key instanceof NumericRange) {
+			NumericRange range = (NumericRange) key;
+			signature.append('r').append(range.getMin()).append(':').append(range.getMax());
+		} else if (key instanceof Double || key instanceof Float) {
+			signature.append('d').append(((Number) key).doubleValue());
+		} else if (key instanceof Number) {
+			signature.append('l').append(((Number) key).longValue());
+		} else if (key instanceof Boolean) {
+			signature.append('b').append(key);
+		} else {
+			return null;
+		}
+		return signature.toString();
+	}
 }
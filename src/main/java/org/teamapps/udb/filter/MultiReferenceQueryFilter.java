@@ -0,0 +1,46 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.filter;
+
+import org.teamapps.universaldb.index.reference.multi.MultiReferenceFilter;
+
+public class MultiReferenceQueryFilter extends AbstractQueryFilter {
+
+	private final MultiReferenceFilter multiReferenceFilter;
+
+	public MultiReferenceQueryFilter(String fieldName, MultiReferenceFilter multiReferenceFilter) {
+		super(fieldName);
+		this.multiReferenceFilter = multiReferenceFilter;
+	}
+
+	public MultiReferenceFilter getMultiReferenceFilter() {
+		return multiReferenceFilter;
+	}
+
+	@Override
+	public FilterType getType() {
+		return FilterType.MULTI_REFERENCE;
+	}
+
+	@Override
+	public Object getFilterDefinition() {
+		return multiReferenceFilter;
+	}
+}
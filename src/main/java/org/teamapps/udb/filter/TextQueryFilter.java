@@ -19,15 +19,20 @@
  */
 package org.teamapps.udb.filter;
 
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.TableIndex;
 import org.teamapps.universaldb.index.text.TextFilter;
+import org.teamapps.universaldb.query.Filter;
 
 public class TextQueryFilter extends AbstractQueryFilter {
 
 	private final TextFilter textFilter;
+	private final TextFilter[] alternativeFilters;
 
-	public TextQueryFilter(String fieldName, TextFilter textFilter) {
+	public TextQueryFilter(String fieldName, TextFilter textFilter, TextFilter... alternativeFilters) {
 		super(fieldName);
 		this.textFilter = textFilter;
+		this.alternativeFilters = alternativeFilters;
 	}
 
 	public TextFilter getTextFilter() {
@@ -43,4 +48,14 @@ public class TextQueryFilter extends AbstractQueryFilter {
 	public Object getFilterDefinition() {
 		return textFilter;
 	}
+
+	@Override
+	public Filter createFilter(TableIndex tableIndex) {
+		Filter filter = super.createFilter(tableIndex);
+		ColumnIndex columnIndex = tableIndex.getColumnIndex(getFieldName());
+		for (TextFilter alternativeFilter : alternativeFilters) {
+			filter = filter.or(columnIndex.createFilter(alternativeFilter));
+		}
+		return filter;
+	}
 }
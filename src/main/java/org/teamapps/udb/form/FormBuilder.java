@@ -27,6 +27,7 @@ import org.teamapps.icons.Icon;
 import org.teamapps.udb.AbstractBuilder;
 import org.teamapps.udb.Field;
 import org.teamapps.udb.ModelBuilderFactory;
+import org.teamapps.udb.cache.TableChangeTracker;
 import org.teamapps.udb.decider.DeciderSet;
 import org.teamapps.udb.decider.EntityValidationResult;
 import org.teamapps.universaldb.index.ColumnIndex;
@@ -114,6 +115,7 @@ public class FormBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<
 			okCancel.onResult.addListener(ok -> {
 				if (ok) {
 					entity.delete();
+					TableChangeTracker.recordChanged(getModelBuilderFactory().getTableIndex(), entity.getId());
 				}
 			});
 		});
@@ -292,6 +294,7 @@ public class FormBuilder<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<
 			}
 		}
 		entity.save();
+		TableChangeTracker.recordChanged(getModelBuilderFactory().getTableIndex(), entity.getId());
 		SessionContext.current().showNotification(getIcon(TeamAppsIconBundle.SAVE.getKey()), getLocalized(TeamAppsDictionary.RECORD_SUCCESSFULLY_SAVED.getKey()));
 	}
 
@@ -0,0 +1,163 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.filter.NumericQueryFilter;
+import org.teamapps.udb.time.CalendarUnit;
+import org.teamapps.udb.time.ZoneOffsetCache;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.LongIndex;
+import org.teamapps.universaldb.index.numeric.NumericFilter;
+import org.teamapps.ux.session.SessionContext;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+public class DateBucketAggregator extends GroupAggregator.NumericAggregator {
+
+	private static final long EMPTY_BUCKET = Long.MIN_VALUE;
+
+	private final CalendarUnit calendarUnit;
+	private final ZoneOffsetCache offsetCache;
+	private final IntegerIndex integerIndex;
+	private final LongIndex longIndex;
+
+	public static CalendarUnit getCalendarUnit(GroupingNodeType nodeType) {
+		if (nodeType == null) {
+			return null;
+		}
+		switch (nodeType) {
+			case DATE_YEAR:
+				return CalendarUnit.YEAR;
+			case DATE_QUARTER:
+				return CalendarUnit.QUARTER;
+			case DATE_MONTH:
+				return CalendarUnit.MONTH;
+			case DATE_WEEK:
+				return CalendarUnit.WEEK;
+			case DATE_DAY:
+				return CalendarUnit.DAY;
+			default:
+				return null;
+		}
+	}
+
+	public static ZoneId getZoneId(ColumnIndex index, ZoneId sessionZoneId) {
+		ColumnType columnType = index.getColumnType();
+		if (columnType == ColumnType.DATE || columnType == ColumnType.LOCAL_DATE) {
+			return ZoneOffset.UTC;
+		}
+		return sessionZoneId;
+	}
+
+	public static NumericQueryFilter createQueryFilter(ColumnIndex index, GroupingNodeType nodeType, ZoneId sessionZoneId, Object key) {
+		if (key == null) {
+			return new NumericQueryFilter(index.getName(), NumericFilter.equalsFilter(0));
+		}
+		CalendarUnit calendarUnit = getCalendarUnit(nodeType);
+		ZoneId zoneId = getZoneId(index, sessionZoneId);
+		long bucket = (Long) key;
+		long start = LocalDate.ofEpochDay(calendarUnit.getFirstDay(bucket)).atStartOfDay(zoneId).toInstant().toEpochMilli();
+		long end = LocalDate.ofEpochDay(calendarUnit.getEndDay(bucket)).atStartOfDay(zoneId).toInstant().toEpochMilli() - 1;
+		if (index.getType() == IndexType.INT) {
+			return new NumericQueryFilter(index.getName(), NumericFilter.betweenFilter((int) Math.floorDiv(start, 1000L), (int) Math.floorDiv(end, 1000L)));
+		} else {
+			return new NumericQueryFilter(index.getName(), NumericFilter.betweenFilter(start, end));
+		}
+	}
+
+	public DateBucketAggregator(ColumnIndex index, CalendarUnit calendarUnit, String emptyLabel, ZoneId sessionZoneId, Locale locale) {
+		super(index, emptyLabel);
+		this.calendarUnit = calendarUnit;
+		this.locale = locale;
+		this.offsetCache = new ZoneOffsetCache(getZoneId(index, sessionZoneId));
+		this.integerIndex = index.getType() == IndexType.INT ? (IntegerIndex) index : null;
+		this.longIndex = index.getType() == IndexType.LONG ? (LongIndex) index : null;
+	}
+
+	@Override
+	long readKey(int recordId) {
+		long millis;
+		if (integerIndex != null) {
+			millis = integerIndex.getValue(recordId) * 1000L;
+		} else if (longIndex != null) {
+			millis = longIndex.getValue(recordId);
+		} else {
+			millis = 0;
+		}
+		if (millis == 0) {
+			return EMPTY_BUCKET;
+		}
+		return calendarUnit.getBucket(CalendarUnit.toEpochDay(offsetCache.toLocalMillis(millis)));
+	}
+
+	@Override
+	Object toKey(long key) {
+		return key == EMPTY_BUCKET ? null : key;
+	}
+
+	@Override
+	long fromKey(Object key) {
+		return key == null ? EMPTY_BUCKET : (Long) key;
+	}
+
+	@Override
+	GroupingEntry createEntry(long key, int count, int recordId) {
+		if (key == EMPTY_BUCKET) {
+			return new GroupingEntry(null, count, () -> emptyLabel);
+		}
+		return new GroupingEntry(key, count, () -> createBucketLabel(key));
+	}
+
+	@Override
+	public List<GroupingEntry> getEntries() {
+		List<GroupingEntry> entries = new ArrayList<>(getGroupCount());
+		collectEntries(entries);
+		entries.sort(Comparator.comparing(entry -> (Long) entry.getKey(), Comparator.nullsFirst(Comparator.naturalOrder())));
+		return entries;
+	}
+
+	private String createBucketLabel(long bucket) {
+		LocalDate date = LocalDate.ofEpochDay(calendarUnit.getFirstDay(bucket));
+		switch (calendarUnit) {
+			case YEAR:
+				return String.valueOf(date.getYear());
+			case QUARTER:
+				return SessionContext.current().getLocalized("grouping.quarterOfYear", date.get(IsoFields.QUARTER_OF_YEAR), date.getYear());
+			case MONTH:
+				return DateTimeFormatter.ofPattern("MMMM yyyy", locale).format(date);
+			case WEEK:
+				return SessionContext.current().getLocalized("grouping.weekOfYear", date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), date.get(IsoFields.WEEK_BASED_YEAR));
+			default:
+				return DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(locale).format(date);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+public class DistinctCountEstimator {
+
+	private static final int PRECISION = 12;
+	private static final int REGISTERS = 1 << PRECISION;
+
+	private final byte[] registers = new byte[REGISTERS];
+
+	public void add(Object value) {
+		addHash(hash(value == null ? 0 : value.hashCode()));
+	}
+
+	public void addHash(long hash) {
+		int index = (int) (hash >>> (64 - PRECISION));
+		int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	public void merge(DistinctCountEstimator other) {
+		for (int i = 0; i < REGISTERS; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+	public long estimate() {
+		double sum = 0;
+		int zeroRegisters = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeroRegisters++;
+			}
+		}
+		double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+		double estimate = alpha * REGISTERS * REGISTERS / sum;
+		if (estimate <= 2.5 * REGISTERS && zeroRegisters > 0) {
+			estimate = REGISTERS * Math.log((double) REGISTERS / zeroRegisters);
+		}
+		return Math.round(estimate);
+	}
+
+	private static long hash(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
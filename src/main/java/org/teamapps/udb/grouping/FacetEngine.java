@@ -0,0 +1,297 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.cache.TableChangeTracker;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.sort.RecordSorter;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class FacetEngine {
+
+	private static final ForkJoinPool GROUPING_POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 4), pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("udb-grouping-" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}, null, false);
+
+	private final TableIndex tableIndex;
+	private final List<GroupingNode> nodes;
+	private final String emptyLabel;
+	private final ZoneId zoneId;
+	private final Locale locale;
+	private int parallelThreshold = 250_000;
+	private int maxParallelChunks = Math.max(1, GROUPING_POOL.getParallelism() / 2);
+	private double maxDeltaRatio = 0.3;
+	private int maxExactGroups = 10_000;
+	private long postingBudget = 64L * 1024 * 1024;
+	private Map<GroupingNode, NodeState> nodeStates = new HashMap<>();
+
+	public FacetEngine(TableIndex tableIndex, List<GroupingNode> nodes, String emptyLabel, ZoneId zoneId, Locale locale) {
+		this.tableIndex = tableIndex;
+		this.nodes = nodes.stream()
+				.filter(node -> node.getChildNodes() == null || node.getChildNodes().isEmpty())
+				.collect(Collectors.toList());
+		this.emptyLabel = emptyLabel;
+		this.zoneId = zoneId;
+		this.locale = locale;
+	}
+
+	public List<GroupingEntry> getEntries(RecordSet records, GroupingNode node) {
+		return getEntries(node, n -> records);
+	}
+
+	public synchronized List<GroupingEntry> getEntries(GroupingNode node, Function<GroupingNode, RecordSet> inputRecords) {
+		boolean incremental = TableChangeTracker.hasWriteSignal(tableIndex);
+		long modificationCount = TableChangeTracker.getModificationCount(tableIndex);
+		Map<RecordSet, Map<RecordSet, List<GroupingNode>>> staleNodes = new IdentityHashMap<>();
+		for (GroupingNode groupingNode : getRequiredNodes(node)) {
+			RecordSet records = inputRecords.apply(groupingNode);
+			if (records == null) {
+				continue;
+			}
+			NodeState state = nodeStates.get(groupingNode);
+			if (state != null && state.records == records && state.modificationCount == modificationCount) {
+				continue;
+			}
+			RecordSet previousRecords = incremental && state != null && state.modificationCount == modificationCount ? state.records : null;
+			staleNodes.computeIfAbsent(records, r -> new IdentityHashMap<>())
+					.computeIfAbsent(previousRecords, r -> new ArrayList<>())
+					.add(groupingNode);
+		}
+		staleNodes.forEach((records, nodesByPreviousRecords) -> nodesByPreviousRecords.forEach((previousRecords, staleNodeList) -> {
+			Map<GroupingNode, GroupAggregator> aggregators = previousRecords != null ? updateAggregators(previousRecords, records, staleNodeList) : null;
+			if (aggregators == null) {
+				aggregators = count(records, staleNodeList, getAvailablePostingBytes(staleNodeList));
+			}
+			aggregators.forEach((groupingNode, aggregator) -> nodeStates.put(groupingNode, new NodeState(records, modificationCount, aggregator)));
+		}));
+		return nodeStates.get(node).getEntries();
+	}
+
+	public synchronized RecordSet getPostings(GroupingNode node, RecordSet records, List<Object> keys) {
+		NodeState state = nodeStates.get(node);
+		if (state == null || state.records != records || state.modificationCount != TableChangeTracker.getModificationCount(tableIndex) || !state.aggregator.hasPostings()) {
+			return null;
+		}
+		BitSet bitSet = new BitSet();
+		for (Object key : keys) {
+			state.aggregator.addPostings(key, bitSet);
+		}
+		return RecordSet.of(bitSet);
+	}
+
+	private long getAvailablePostingBytes(List<GroupingNode> staleNodes) {
+		long usedBytes = nodeStates.entrySet().stream()
+				.filter(entry -> !staleNodes.contains(entry.getKey()))
+				.mapToLong(entry -> entry.getValue().aggregator.getPostingsSizeInBytes())
+				.sum();
+		return Math.max(0, postingBudget - usedBytes);
+	}
+
+	public synchronized void clear() {
+		nodeStates = new HashMap<>();
+	}
+
+	private Map<GroupingNode, GroupAggregator> updateAggregators(RecordSet previousRecords, RecordSet records, List<GroupingNode> staleNodes) {
+		BitSet previousBits = previousRecords.toBitSet();
+		BitSet addedRecords = records.toBitSet();
+		addedRecords.xor(previousBits);
+		if (addedRecords.cardinality() > records.cardinality() * maxDeltaRatio) {
+			return null;
+		}
+		BitSet removedRecords = (BitSet) addedRecords.clone();
+		removedRecords.and(previousBits);
+		addedRecords.andNot(previousBits);
+		int[] addedIds = addedRecords.stream().toArray();
+		int[] removedIds = removedRecords.stream().toArray();
+		Map<GroupingNode, GroupAggregator> aggregators = new HashMap<>();
+		List<GroupingNode> nonIncrementalNodes = new ArrayList<>();
+		for (GroupingNode node : staleNodes) {
+			GroupAggregator aggregator = nodeStates.get(node).aggregator;
+			if (aggregator.isIncremental()) {
+				aggregator.addAll(addedIds);
+				aggregator.removeAll(removedIds);
+				aggregators.put(node, aggregator);
+			} else {
+				nonIncrementalNodes.add(node);
+			}
+		}
+		if (!nonIncrementalNodes.isEmpty()) {
+			aggregators.putAll(count(records, nonIncrementalNodes, getAvailablePostingBytes(staleNodes)));
+		}
+		return aggregators;
+	}
+
+	private List<GroupingNode> getRequiredNodes(GroupingNode node) {
+		List<GroupingNode> requiredNodes = new ArrayList<>();
+		requiredNodes.add(node);
+		for (GroupingNode groupingNode : nodeStates.keySet()) {
+			if (groupingNode != node) {
+				requiredNodes.add(groupingNode);
+			}
+		}
+		return requiredNodes;
+	}
+
+	public List<GroupingNode> getNodes() {
+		return nodes;
+	}
+
+	public int getExactCount(RecordSet records, GroupingNode node, GroupingEntry entry) {
+		return createAggregator(node).countExact(records, entry.getKey());
+	}
+
+	public long getPostingBudget() {
+		return postingBudget;
+	}
+
+	public FacetEngine setPostingBudget(long postingBudget) {
+		this.postingBudget = Math.max(0, postingBudget);
+		return this;
+	}
+
+	public int getMaxExactGroups() {
+		return maxExactGroups;
+	}
+
+	public FacetEngine setMaxExactGroups(int maxExactGroups) {
+		this.maxExactGroups = maxExactGroups;
+		return this;
+	}
+
+	public double getMaxDeltaRatio() {
+		return maxDeltaRatio;
+	}
+
+	public FacetEngine setMaxDeltaRatio(double maxDeltaRatio) {
+		this.maxDeltaRatio = maxDeltaRatio;
+		return this;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public FacetEngine setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = Math.max(1, parallelThreshold);
+		return this;
+	}
+
+	public int getMaxParallelChunks() {
+		return maxParallelChunks;
+	}
+
+	public FacetEngine setMaxParallelChunks(int maxParallelChunks) {
+		this.maxParallelChunks = Math.max(1, Math.min(GROUPING_POOL.getParallelism(), maxParallelChunks));
+		return this;
+	}
+
+	public Map<GroupingNode, GroupAggregator> count(RecordSet records, List<GroupingNode> nodes) {
+		return count(records, nodes, 0);
+	}
+
+	private Map<GroupingNode, GroupAggregator> count(RecordSet records, List<GroupingNode> nodes, long postingBytes) {
+		int[] ids = RecordSorter.toArray(records);
+		List<GroupingNode> postingNodes = new ArrayList<>();
+		long requiredBytes = 4L * ids.length;
+		for (GroupingNode node : nodes) {
+			if (postingBytes >= requiredBytes && createAggregator(node).supportsPostings()) {
+				postingNodes.add(node);
+				postingBytes -= requiredBytes;
+			}
+		}
+		int chunks = Math.min(maxParallelChunks, ids.length / parallelThreshold);
+		if (chunks <= 1) {
+			return count(ids, 0, ids.length, nodes, postingNodes);
+		}
+		List<ForkJoinTask<Map<GroupingNode, GroupAggregator>>> tasks = new ArrayList<>();
+		int from = 0;
+		for (int i = 1; i <= chunks && from < ids.length; i++) {
+			int to = i == chunks ? ids.length : alignToWord(ids, Math.max(from, (int) ((long) ids.length * i / chunks)));
+			int chunkFrom = from;
+			tasks.add(GROUPING_POOL.submit(() -> count(ids, chunkFrom, to, nodes, postingNodes)));
+			from = to;
+		}
+		Map<GroupingNode, GroupAggregator> aggregators = tasks.get(0).join();
+		for (int i = 1; i < tasks.size(); i++) {
+			tasks.get(i).join().forEach((node, aggregator) -> aggregators.get(node).merge(aggregator));
+		}
+		return aggregators;
+	}
+
+	private Map<GroupingNode, GroupAggregator> count(int[] ids, int from, int to, List<GroupingNode> nodes, List<GroupingNode> postingNodes) {
+		Map<GroupingNode, GroupAggregator> aggregators = new HashMap<>();
+		for (GroupingNode node : nodes) {
+			GroupAggregator aggregator = createAggregator(node);
+			aggregator.setCollectPostings(postingNodes.contains(node));
+			aggregator.prepare(ids);
+			aggregator.addAll(ids, from, to);
+			aggregators.put(node, aggregator);
+		}
+		return aggregators;
+	}
+
+	private static class NodeState {
+		private final RecordSet records;
+		private final long modificationCount;
+		private final GroupAggregator aggregator;
+		private List<GroupingEntry> entries;
+
+		private NodeState(RecordSet records, long modificationCount, GroupAggregator aggregator) {
+			this.records = records;
+			this.modificationCount = modificationCount;
+			this.aggregator = aggregator;
+		}
+
+		private List<GroupingEntry> getEntries() {
+			if (entries == null) {
+				entries = aggregator.getEntries();
+			}
+			return entries;
+		}
+	}
+
+	private static int alignToWord(int[] ids, int pos) {
+		while (pos > 0 && pos < ids.length && ids[pos] >>> 6 == ids[pos - 1] >>> 6) {
+			pos++;
+		}
+		return pos;
+	}
+
+	public GroupAggregator createAggregator(GroupingNode node) {
+		return GroupAggregator.create(node.getIndex(), node.getNodeType(), emptyLabel, zoneId, locale).setMaxExactGroups(maxExactGroups).setLocale(locale);
+	}
+}
@@ -0,0 +1,143 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.filter.GroupFilter;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.query.Filter;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class FacetFilterSets {
+
+	private static final int MAX_CACHED_SETS = 32;
+
+	private final TableIndex tableIndex;
+	private RecordSet baseRecords;
+	private Map<Set<Object>, RecordSet> recordsByDefinition = createCache();
+	private Map<Set<Object>, BitSet> nodeRecordsByDefinition = createCache();
+
+	public FacetFilterSets(TableIndex tableIndex) {
+		this.tableIndex = tableIndex;
+	}
+
+	public synchronized RecordSet getRecords(RecordSet baseRecords, List<GroupFilter> groupFilters, GroupingNode node) {
+		List<GroupFilter> filters = getIncludedFilters(groupFilters, node);
+		if (filters.isEmpty()) {
+			return baseRecords;
+		}
+		setBaseRecords(baseRecords);
+		Set<Object> definition = getDefinition(filters);
+		RecordSet records = recordsByDefinition.get(definition);
+		if (records == null) {
+			records = computeRecords(baseRecords, filters);
+			recordsByDefinition.put(definition, records);
+		}
+		return records;
+	}
+
+	public synchronized RecordSet getCachedRecords(RecordSet baseRecords, List<GroupFilter> groupFilters, GroupingNode node) {
+		List<GroupFilter> filters = getIncludedFilters(groupFilters, node);
+		if (filters.isEmpty()) {
+			return baseRecords;
+		}
+		setBaseRecords(baseRecords);
+		return recordsByDefinition.get(getDefinition(filters));
+	}
+
+	public synchronized void putRecords(RecordSet baseRecords, List<GroupFilter> groupFilters, RecordSet records) {
+		if (groupFilters.isEmpty()) {
+			return;
+		}
+		setBaseRecords(baseRecords);
+		recordsByDefinition.put(getDefinition(groupFilters), records);
+	}
+
+	private void setBaseRecords(RecordSet baseRecords) {
+		if (baseRecords != this.baseRecords) {
+			this.baseRecords = baseRecords;
+			recordsByDefinition = createCache();
+			nodeRecordsByDefinition = createCache();
+		}
+	}
+
+	private static List<GroupFilter> getIncludedFilters(List<GroupFilter> groupFilters, GroupingNode node) {
+		if (groupFilters.stream().noneMatch(filter -> filter.getGroupingNode() == node)) {
+			return groupFilters;
+		}
+		return groupFilters.stream().filter(filter -> filter.getGroupingNode() != node).collect(Collectors.toList());
+	}
+
+	private RecordSet computeRecords(RecordSet baseRecords, List<GroupFilter> groupFilters) {
+		Map<GroupingNode, List<GroupFilter>> filtersByNode = groupFilters.stream()
+				.collect(Collectors.groupingBy(GroupFilter::getGroupingNode, LinkedHashMap::new, Collectors.toList()));
+		BitSet base = baseRecords.toBitSet();
+		BitSet records = null;
+		for (List<GroupFilter> nodeFilters : filtersByNode.values()) {
+			BitSet nodeRecords = getNodeRecords(base, nodeFilters);
+			if (records == null) {
+				records = (BitSet) nodeRecords.clone();
+			} else {
+				records.and(nodeRecords);
+			}
+		}
+		return RecordSet.of(records);
+	}
+
+	private BitSet getNodeRecords(BitSet base, List<GroupFilter> nodeFilters) {
+		Set<Object> definition = getDefinition(nodeFilters);
+		BitSet records = nodeRecordsByDefinition.get(definition);
+		if (records == null) {
+			Filter nodeFilter = null;
+			for (GroupFilter groupFilter : nodeFilters) {
+				Filter filter = groupFilter.getQueryFilter().createFilter(tableIndex);
+				nodeFilter = nodeFilter == null ? filter : nodeFilter.or(filter);
+			}
+			records = nodeFilter.filter((BitSet) base.clone());
+			nodeRecordsByDefinition.put(definition, records);
+		}
+		return records;
+	}
+
+	private static <VALUE> Map<Set<Object>, VALUE> createCache() {
+		return new LinkedHashMap<Set<Object>, VALUE>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Set<Object>, VALUE> eldest) {
+				return size() > MAX_CACHED_SETS;
+			}
+		};
+	}
+
+	private static Set<Object> getDefinition(List<GroupFilter> groupFilters) {
+		Set<Object> definition = new HashSet<>();
+		for (GroupFilter groupFilter : groupFilters) {
+			String signature = groupFilter.getSignature();
+			definition.add(signature != null ? signature : groupFilter);
+		}
+		return definition;
+	}
+}
@@ -0,0 +1,692 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.time.CalendarUnit;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.bool.BooleanIndex;
+import org.teamapps.universaldb.index.numeric.*;
+import org.teamapps.universaldb.index.text.TextIndex;
+import org.teamapps.ux.session.SessionContext;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+
+public abstract class GroupAggregator {
+
+	private static final String TERM_SEPARATORS = "[\\t,;.\\-:@\\[\\](){}_*/ ]";
+
+	protected final ColumnIndex index;
+	protected final String emptyLabel;
+	protected int maxExactGroups = 10_000;
+	protected Locale locale = Locale.getDefault();
+	private GroupPostings postings;
+
+	public static GroupAggregator create(ColumnIndex index, GroupingNodeType nodeType, String emptyLabel) {
+		return create(index, nodeType, emptyLabel, ZoneOffset.UTC, Locale.getDefault());
+	}
+
+	public static GroupAggregator create(ColumnIndex index, GroupingNodeType nodeType, String emptyLabel, ZoneId zoneId, Locale locale) {
+		CalendarUnit calendarUnit = DateBucketAggregator.getCalendarUnit(nodeType);
+		if (calendarUnit != null) {
+			return new DateBucketAggregator(index, calendarUnit, emptyLabel, zoneId, locale);
+		}
+		if (nodeType == GroupingNodeType.TEXT_TERM) {
+			return new TermAggregator(index, emptyLabel);
+		}
+		if (HistogramAggregator.isHistogram(nodeType)) {
+			return new HistogramAggregator(index, nodeType, emptyLabel, locale);
+		}
+		if (ReferenceAggregator.isReference(index)) {
+			return new ReferenceAggregator(index, emptyLabel);
+		}
+		switch (index.getType()) {
+			case BOOLEAN:
+				return new BooleanAggregator(index, emptyLabel);
+			case SHORT:
+				return new ShortAggregator(index, emptyLabel);
+			case INT:
+				IntegerIndex integerIndex = (IntegerIndex) index;
+				return new NumericAggregator(index, emptyLabel) {
+					@Override
+					long readKey(int recordId) {
+						return integerIndex.getValue(recordId);
+					}
+
+					@Override
+					Object toKey(long key) {
+						return (int) key;
+					}
+
+					@Override
+					long fromKey(Object key) {
+						return ((Number) key).longValue();
+					}
+				};
+			case LONG:
+				LongIndex longIndex = (LongIndex) index;
+				return new NumericAggregator(index, emptyLabel) {
+					@Override
+					long readKey(int recordId) {
+						return longIndex.getValue(recordId);
+					}
+
+					@Override
+					Object toKey(long key) {
+						return key;
+					}
+
+					@Override
+					long fromKey(Object key) {
+						return ((Number) key).longValue();
+					}
+				};
+			case FLOAT:
+				FloatIndex floatIndex = (FloatIndex) index;
+				return new NumericAggregator(index, emptyLabel) {
+					@Override
+					long readKey(int recordId) {
+						return Float.floatToIntBits(floatIndex.getValue(recordId));
+					}
+
+					@Override
+					Object toKey(long key) {
+						return Float.intBitsToFloat((int) key);
+					}
+
+					@Override
+					long fromKey(Object key) {
+						return Float.floatToIntBits(((Number) key).floatValue());
+					}
+				};
+			case DOUBLE:
+				DoubleIndex doubleIndex = (DoubleIndex) index;
+				return new NumericAggregator(index, emptyLabel) {
+					@Override
+					long readKey(int recordId) {
+						return Double.doubleToLongBits(doubleIndex.getValue(recordId));
+					}
+
+					@Override
+					Object toKey(long key) {
+						return Double.longBitsToDouble(key);
+					}
+
+					@Override
+					long fromKey(Object key) {
+						return Double.doubleToLongBits(((Number) key).doubleValue());
+					}
+				};
+			case TEXT:
+				return new TextAggregator(index, emptyLabel);
+			default:
+				return new StringValueAggregator(index, emptyLabel);
+		}
+	}
+
+	protected GroupAggregator(ColumnIndex index, String emptyLabel) {
+		this.index = index;
+		this.emptyLabel = emptyLabel;
+	}
+
+	public void prepare(int[] recordIds) {
+	}
+
+	public void add(int recordId) {
+		int group = update(recordId, 1);
+		if (postings != null) {
+			if (group >= 0) {
+				postings.add(group, recordId);
+			} else {
+				postings = null;
+			}
+		}
+	}
+
+	public void remove(int recordId) {
+		update(recordId, -1);
+		postings = null;
+	}
+
+	protected abstract int update(int recordId, int delta);
+
+	public void addAll(RecordSet records) {
+		for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+			add(iterator.nextInt());
+		}
+	}
+
+	public void addAll(int[] recordIds) {
+		addAll(recordIds, 0, recordIds.length);
+	}
+
+	public void addAll(int[] recordIds, int from, int to) {
+		for (int i = from; i < to; i++) {
+			add(recordIds[i]);
+		}
+	}
+
+	public void removeAll(int[] recordIds) {
+		for (int recordId : recordIds) {
+			remove(recordId);
+		}
+	}
+
+	public abstract void merge(GroupAggregator other);
+
+	public abstract int getGroupCount();
+
+	public boolean isExact() {
+		return true;
+	}
+
+	public boolean isIncremental() {
+		return isExact();
+	}
+
+	public boolean supportsPostings() {
+		return true;
+	}
+
+	public GroupAggregator setCollectPostings(boolean collectPostings) {
+		postings = collectPostings ? new GroupPostings() : null;
+		return this;
+	}
+
+	public boolean hasPostings() {
+		return postings != null;
+	}
+
+	public long getPostingsSizeInBytes() {
+		return postings != null ? postings.getSizeInBytes() : 0;
+	}
+
+	public void addPostings(Object key, BitSet bitSet) {
+		postings.addRecords(getGroupIndex(key), bitSet);
+	}
+
+	protected void invalidatePostings() {
+		postings = null;
+	}
+
+	protected void mergePostings(GroupAggregator other, int otherGroup, int group) {
+		if (postings == null) {
+			return;
+		}
+		if (other.postings == null || group < 0) {
+			postings = null;
+		} else {
+			postings.addAll(group, other.postings, otherGroup);
+		}
+	}
+
+	protected abstract int getGroupIndex(Object key);
+
+	public int getMaxExactGroups() {
+		return maxExactGroups;
+	}
+
+	public GroupAggregator setMaxExactGroups(int maxExactGroups) {
+		this.maxExactGroups = maxExactGroups;
+		return this;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public GroupAggregator setLocale(Locale locale) {
+		this.locale = locale;
+		return this;
+	}
+
+	public int countExact(RecordSet records, Object key) {
+		int count = 0;
+		for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+			count += countMatches(iterator.nextInt(), key);
+		}
+		return count;
+	}
+
+	protected abstract int countMatches(int recordId, Object key);
+
+	public List<GroupingEntry> getEntries() {
+		List<GroupingEntry> entries = new ArrayList<>(getGroupCount());
+		collectEntries(entries);
+		entries.sort(Comparator.comparingInt(GroupingEntry::getCount).reversed());
+		return entries;
+	}
+
+	protected abstract void collectEntries(List<GroupingEntry> entries);
+
+	protected String createLabel(int recordId) {
+		return createLabel(index.getStringValue(recordId));
+	}
+
+	protected String createLabel(String value) {
+		if (normalizeValue(value) == null) {
+			return emptyLabel;
+		}
+		return value;
+	}
+
+	public static String normalizeValue(String value) {
+		if (value == null || value.isEmpty() || value.equals("NULL") || value.equals("0")) {
+			return null;
+		}
+		return value;
+	}
+
+	private static class BooleanAggregator extends GroupAggregator {
+
+		private final BooleanIndex booleanIndex;
+		private final int[] counts = new int[2];
+		private final int[] recordIds = new int[2];
+
+		private BooleanAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+			this.booleanIndex = (BooleanIndex) index;
+		}
+
+		@Override
+		protected int update(int recordId, int delta) {
+			int value = booleanIndex.getValue(recordId) ? 1 : 0;
+			if (counts[value] <= 0) {
+				recordIds[value] = recordId;
+			}
+			counts[value] += delta;
+			return value;
+		}
+
+		@Override
+		protected int getGroupIndex(Object key) {
+			return Boolean.TRUE.equals(key) ? 1 : 0;
+		}
+
+		@Override
+		public void merge(GroupAggregator other) {
+			BooleanAggregator aggregator = (BooleanAggregator) other;
+			for (int i = 0; i < 2; i++) {
+				if (counts[i] <= 0) {
+					recordIds[i] = aggregator.recordIds[i];
+				}
+				counts[i] += aggregator.counts[i];
+				mergePostings(other, i, i);
+			}
+		}
+
+		@Override
+		public int getGroupCount() {
+			return (counts[0] > 0 ? 1 : 0) + (counts[1] > 0 ? 1 : 0);
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			return booleanIndex.getValue(recordId) == Boolean.TRUE.equals(key) ? 1 : 0;
+		}
+
+		@Override
+		protected void collectEntries(List<GroupingEntry> entries) {
+			for (int i = 0; i < 2; i++) {
+				if (counts[i] > 0) {
+					int recordId = recordIds[i];
+					entries.add(new GroupingEntry(i == 1, counts[i], () -> createLabel(recordId)));
+				}
+			}
+		}
+	}
+
+	private static class ShortAggregator extends GroupAggregator {
+
+		private final ShortIndex shortIndex;
+		private final int[] counts = new int[65536];
+		private final int[] recordIds = new int[65536];
+
+		private ShortAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+			this.shortIndex = (ShortIndex) index;
+		}
+
+		@Override
+		protected int update(int recordId, int delta) {
+			int value = shortIndex.getValue(recordId) & 0xFFFF;
+			if (counts[value] <= 0) {
+				recordIds[value] = recordId;
+			}
+			counts[value] += delta;
+			return value;
+		}
+
+		@Override
+		protected int getGroupIndex(Object key) {
+			return key instanceof Number ? ((Number) key).shortValue() & 0xFFFF : -1;
+		}
+
+		@Override
+		public void merge(GroupAggregator other) {
+			ShortAggregator aggregator = (ShortAggregator) other;
+			for (int i = 0; i < counts.length; i++) {
+				if (aggregator.counts[i] > 0) {
+					if (counts[i] <= 0) {
+						recordIds[i] = aggregator.recordIds[i];
+					}
+					counts[i] += aggregator.counts[i];
+					mergePostings(other, i, i);
+				}
+			}
+		}
+
+		@Override
+		public int getGroupCount() {
+			int groups = 0;
+			for (int count : counts) {
+				if (count > 0) {
+					groups++;
+				}
+			}
+			return groups;
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			return (shortIndex.getValue(recordId) & 0xFFFF) == getGroupIndex(key) ? 1 : 0;
+		}
+
+		@Override
+		protected void collectEntries(List<GroupingEntry> entries) {
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > 0) {
+					int recordId = recordIds[i];
+					entries.add(new GroupingEntry((short) i, counts[i], () -> createLabel(recordId)));
+				}
+			}
+		}
+	}
+
+	static abstract class NumericAggregator extends GroupAggregator {
+
+		private final LongCountMap countMap = new LongCountMap();
+
+		NumericAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+		}
+
+		abstract long readKey(int recordId);
+
+		abstract Object toKey(long key);
+
+		abstract long fromKey(Object key);
+
+		@Override
+		protected int update(int recordId, int delta) {
+			return countMap.add(readKey(recordId), recordId, delta);
+		}
+
+		@Override
+		protected int getGroupIndex(Object key) {
+			return countMap.getGroupIndex(fromKey(key));
+		}
+
+		@Override
+		public void merge(GroupAggregator other) {
+			LongCountMap otherMap = ((NumericAggregator) other).countMap;
+			for (int slot = 0; slot < otherMap.capacity(); slot++) {
+				if (otherMap.isUsed(slot)) {
+					int group = countMap.add(otherMap.getKey(slot), otherMap.getRecordId(slot), otherMap.getCount(slot));
+					mergePostings(other, otherMap.getSlotGroupIndex(slot), group);
+				}
+			}
+		}
+
+		@Override
+		public int getGroupCount() {
+			return countMap.size();
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			return readKey(recordId) == fromKey(key) ? 1 : 0;
+		}
+
+		@Override
+		protected void collectEntries(List<GroupingEntry> entries) {
+			for (int slot = 0; slot < countMap.capacity(); slot++) {
+				if (countMap.isUsed(slot) && countMap.getCount(slot) > 0) {
+					entries.add(createEntry(countMap.getKey(slot), countMap.getCount(slot), countMap.getRecordId(slot)));
+				}
+			}
+		}
+
+		GroupingEntry createEntry(long key, int count, int recordId) {
+			return new GroupingEntry(toKey(key), count, () -> createLabel(recordId));
+		}
+	}
+
+	private static abstract class StringKeyAggregator extends GroupAggregator {
+
+		private static final int SKETCH_CAPACITY = 2_000;
+		private static final int MAX_APPROXIMATE_ENTRIES = 500;
+
+		protected final Map<String, int[]> counts = new HashMap<>();
+		private int groupCount;
+		private SpaceSavingSketch<String> sketch;
+		private DistinctCountEstimator distinctCountEstimator;
+
+		private StringKeyAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+		}
+
+		protected int update(String key, int recordId, int delta) {
+			if (sketch != null) {
+				if (delta > 0) {
+					sketch.add(key, recordId, delta);
+					distinctCountEstimator.add(key);
+				}
+				return -1;
+			}
+			int[] counter = counts.get(key);
+			if (counter == null) {
+				if (delta > 0) {
+					counter = new int[]{delta, recordId, groupCount++};
+					counts.put(key, counter);
+					if (counts.size() > maxExactGroups) {
+						switchToSketch();
+						return -1;
+					}
+					return counter[2];
+				}
+			} else if ((counter[0] += delta) <= 0) {
+				counts.remove(key);
+			} else {
+				return counter[2];
+			}
+			return -1;
+		}
+
+		@Override
+		protected int getGroupIndex(Object key) {
+			int[] counter = counts.get(key);
+			return counter != null ? counter[2] : -1;
+		}
+
+		private void switchToSketch() {
+			sketch = new SpaceSavingSketch<>(SKETCH_CAPACITY);
+			distinctCountEstimator = new DistinctCountEstimator();
+			counts.forEach((key, counter) -> {
+				sketch.add(key, counter[1], counter[0]);
+				distinctCountEstimator.add(key);
+			});
+			counts.clear();
+		}
+
+		@Override
+		public void merge(GroupAggregator other) {
+			StringKeyAggregator aggregator = (StringKeyAggregator) other;
+			if (aggregator.sketch != null) {
+				invalidatePostings();
+				if (sketch == null) {
+					switchToSketch();
+				}
+				sketch.merge(aggregator.sketch);
+				distinctCountEstimator.merge(aggregator.distinctCountEstimator);
+			} else {
+				aggregator.counts.forEach((key, otherCounter) -> mergePostings(other, otherCounter[2], update(key, otherCounter[1], otherCounter[0])));
+			}
+		}
+
+		@Override
+		public boolean isExact() {
+			return sketch == null;
+		}
+
+		@Override
+		public int getGroupCount() {
+			return sketch == null ? counts.size() : MAX_APPROXIMATE_ENTRIES + 1;
+		}
+
+		@Override
+		public List<GroupingEntry> getEntries() {
+			if (sketch == null) {
+				return super.getEntries();
+			}
+			List<GroupingEntry> entries = new ArrayList<>();
+			long displayedCount = 0;
+			for (SpaceSavingSketch.Counter<String> counter : sketch.getCounters()) {
+				if (entries.size() == MAX_APPROXIMATE_ENTRIES) {
+					break;
+				}
+				entries.add(createEntry(counter.getKey(), (int) counter.getCount(), (int) counter.getError(), counter.getRecordId()));
+				displayedCount += counter.getCount();
+			}
+			long otherCount = Math.max(0, sketch.getTotal() - displayedCount);
+			long otherDistinct = Math.max(0, distinctCountEstimator.estimate() - entries.size());
+			if (otherCount > 0) {
+				entries.add(new GroupingEntry(null, (int) Math.min(Integer.MAX_VALUE, otherCount), 0, true, () -> SessionContext.current().getLocalized("grouping.otherValues", otherDistinct)));
+			}
+			return entries;
+		}
+
+		@Override
+		protected void collectEntries(List<GroupingEntry> entries) {
+			counts.forEach((key, counter) -> entries.add(createEntry(key, counter[0], 0, counter[1])));
+		}
+
+		protected GroupingEntry createEntry(String key, int count, int countError, int recordId) {
+			return new GroupingEntry(key, count, countError, false, () -> createLabel(key));
+		}
+	}
+
+	private static class TextAggregator extends StringKeyAggregator {
+
+		private final TextIndex textIndex;
+
+		private TextAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+			this.textIndex = (TextIndex) index;
+		}
+
+		@Override
+		protected int update(int recordId, int delta) {
+			return update(normalizeValue(textIndex.getValue(recordId)), recordId, delta);
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			return Objects.equals(normalizeValue(textIndex.getValue(recordId)), key) ? 1 : 0;
+		}
+	}
+
+	private static class TermAggregator extends StringKeyAggregator {
+
+		private TermAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+		}
+
+		@Override
+		public boolean supportsPostings() {
+			return false;
+		}
+
+		@Override
+		protected int update(int recordId, int delta) {
+			String value = index.getStringValue(recordId);
+			if (value != null && !value.isBlank()) {
+				for (String term : value.split(TERM_SEPARATORS)) {
+					if (!term.isBlank()) {
+						update(term, recordId, delta);
+					}
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			String value = index.getStringValue(recordId);
+			if (value == null || value.isBlank()) {
+				return 0;
+			}
+			int count = 0;
+			for (String term : value.split(TERM_SEPARATORS)) {
+				if (term.equals(key)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		@Override
+		protected GroupingEntry createEntry(String key, int count, int countError, int recordId) {
+			return new GroupingEntry(key, count, countError, false, () -> key);
+		}
+	}
+
+	private static class StringValueAggregator extends StringKeyAggregator {
+
+		private StringValueAggregator(ColumnIndex index, String emptyLabel) {
+			super(index, emptyLabel);
+		}
+
+		@Override
+		protected int update(int recordId, int delta) {
+			return update(normalizeValue(index.getStringValue(recordId)), recordId, delta);
+		}
+
+		@Override
+		protected int countMatches(int recordId, Object key) {
+			return Objects.equals(normalizeValue(index.getStringValue(recordId)), key) ? 1 : 0;
+		}
+
+		@Override
+		protected GroupingEntry createEntry(String key, int count, int countError, int recordId) {
+			return new GroupingEntry(key, count, countError, false, () -> createLabel(recordId));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class GroupPostings {
+
+	private int[][] lists = new int[16][];
+	private int[] sizes = new int[16];
+	private long sizeInBytes;
+
+	public void add(int group, int recordId) {
+		if (group >= lists.length) {
+			int length = Math.max(group + 1, lists.length * 2);
+			lists = Arrays.copyOf(lists, length);
+			sizes = Arrays.copyOf(sizes, length);
+		}
+		int[] list = lists[group];
+		if (list == null) {
+			list = new int[4];
+			lists[group] = list;
+			sizeInBytes += 16 + list.length * 4L;
+		} else if (sizes[group] == list.length) {
+			sizeInBytes += list.length * 4L;
+			list = Arrays.copyOf(list, list.length * 2);
+			lists[group] = list;
+		}
+		list[sizes[group]++] = recordId;
+	}
+
+	public void addAll(int group, GroupPostings other, int otherGroup) {
+		if (otherGroup < 0 || otherGroup >= other.lists.length || other.lists[otherGroup] == null) {
+			return;
+		}
+		int[] otherList = other.lists[otherGroup];
+		for (int i = 0; i < other.sizes[otherGroup]; i++) {
+			add(group, otherList[i]);
+		}
+	}
+
+	public RecordSet getRecords(int group) {
+		BitSet bitSet = new BitSet();
+		addRecords(group, bitSet);
+		return RecordSet.of(bitSet);
+	}
+
+	public void addRecords(int group, BitSet bitSet) {
+		if (group < 0 || group >= lists.length || lists[group] == null) {
+			return;
+		}
+		int[] list = lists[group];
+		for (int i = 0; i < sizes[group]; i++) {
+			bitSet.set(list[i]);
+		}
+	}
+
+	public long getSizeInBytes() {
+		return sizeInBytes;
+	}
+}
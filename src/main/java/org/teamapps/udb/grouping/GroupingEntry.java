@@ -20,18 +20,46 @@
 package org.teamapps.udb.grouping;
 
 import java.text.NumberFormat;
+import java.util.function.Supplier;
 
 public class GroupingEntry {
 
-	private final String value;
+	private final Object key;
 	private final int count;
+	private final Supplier<String> labelSupplier;
+	private final int countError;
+	private final boolean summary;
+	private String value;
 
 	public GroupingEntry(String value, int count) {
+		this.key = value;
 		this.value = value;
 		this.count = count;
+		this.labelSupplier = null;
+		this.countError = 0;
+		this.summary = false;
+	}
+
+	public GroupingEntry(Object key, int count, Supplier<String> labelSupplier) {
+		this(key, count, 0, false, labelSupplier);
+	}
+
+	public GroupingEntry(Object key, int count, int countError, boolean summary, Supplier<String> labelSupplier) {
+		this.key = key;
+		this.count = count;
+		this.countError = countError;
+		this.summary = summary;
+		this.labelSupplier = labelSupplier;
+	}
+
+	public Object getKey() {
+		return key;
 	}
 
 	public String getValue() {
+		if (value == null && labelSupplier != null) {
+			value = labelSupplier.get();
+		}
 		return value;
 	}
 
@@ -39,7 +67,19 @@ public class GroupingEntry {
 		return count;
 	}
 
+	public int getCountError() {
+		return countError;
+	}
+
+	public boolean isApproximate() {
+		return countError > 0;
+	}
+
+	public boolean isSummary() {
+		return summary;
+	}
+
 	public String getCountAsString(NumberFormat numberFormat) {
-		return numberFormat.format(count);
+		return isApproximate() || summary ? "~" + numberFormat.format(count) : numberFormat.format(count);
 	}
 }
@@ -102,7 +102,11 @@ public class GroupingNode {
 			case LONG:
 			case FLOAT:
 			case DOUBLE:
-				break;
+				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized(TeamAppsDictionary.BY_FULL_VALUE.getKey()), GroupingNodeType.BY_VALUE));
+				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized("grouping.rangesEqualWidth"), GroupingNodeType.HISTOGRAM_EQUAL_WIDTH));
+				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized("grouping.rangesEqualCount"), GroupingNodeType.HISTOGRAM_EQUAL_DEPTH));
+				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized("grouping.rangesLogarithmic"), GroupingNodeType.HISTOGRAM_LOG));
+				return childNodes;
 			case TEXT:
 				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized(TeamAppsDictionary.BY_FULL_VALUE.getKey()), GroupingNodeType.BY_VALUE));
 				childNodes.add(new GroupingNode(this, SessionContext.current().getLocalized(TeamAppsDictionary.BY_WORDS.getKey()), GroupingNodeType.TEXT_TERM));
@@ -31,4 +31,8 @@ public enum GroupingNodeType {
 	DATE_WEEK,
 	DATE_DAY,
 
+	HISTOGRAM_EQUAL_WIDTH,
+	HISTOGRAM_EQUAL_DEPTH,
+	HISTOGRAM_LOG,
+
 }
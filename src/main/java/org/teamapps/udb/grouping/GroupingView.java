@@ -23,6 +23,7 @@ import org.teamapps.udb.AbstractBuilder;
 import org.teamapps.udb.Field;
 import org.teamapps.udb.ModelBuilderFactory;
 import org.teamapps.udb.filter.*;
+import org.teamapps.udb.recordset.RecordSet;
 import org.teamapps.universaldb.index.ColumnIndex;
 import org.teamapps.universaldb.index.TableIndex;
 import org.teamapps.universaldb.index.bool.BooleanFilter;
@@ -56,10 +57,11 @@ import org.teamapps.ux.model.ListTreeModel;
 import org.teamapps.ux.session.SessionContext;
 
 import java.text.NumberFormat;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder<ENTITY> {
@@ -71,6 +73,13 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 	private Table<GroupingEntry> groupingEntryTable;
 	private ListTableModel<GroupingEntry> listTableModel;
 	private GroupingNode currentNode;
+	private FacetEngine facetEngine;
+	private FacetFilterSets facetFilterSets;
+	private List<GroupingEntry> currentEntries = new ArrayList<>();
+	private GroupingNode exactCountNode;
+	private RecordSet exactCountRecords;
+	private List<GroupFilter> exactCountFilters;
+	private Map<Object, Integer> exactCounts = new HashMap<>();
 
 
 	private List<GroupFilter> groupFilters = new ArrayList<>();
@@ -136,7 +145,10 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 		verticalLayout.addComponentFillRemaining(groupingEntryTable);
 
 
-		ListTreeModel<GroupingNode> treeModel = new ListTreeModel<>(createNodes());
+		List<GroupingNode> nodes = createNodes();
+		facetEngine = new FacetEngine(getModelBuilderFactory().getTableIndex(), nodes, "(" + getLocalized(TeamAppsDictionary.EMPTY.getKey()) + ")", SessionContext.current().getTimeZone(), SessionContext.current().getLocale());
+		facetFilterSets = new FacetFilterSets(getModelBuilderFactory().getTableIndex());
+		ListTreeModel<GroupingNode> treeModel = new ListTreeModel<>(nodes);
 		treeModel.setTreeNodeInfoFunction(node -> new TreeNodeInfoImpl<>(node.getParentNode(), false));
 		filterSelectionTree = new Tree<>(treeModel);
 		filterSelectionTree.setShowExpanders(false);
@@ -162,10 +174,19 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 		filtersTagComboBox.onValueChanged.addListener(list -> {
 			groupFilters = list;
 			getModelBuilderFactory().onGroupFilterChanged.fire(createFilter(groupFilters));
+			regroup();
 		});
 
 		groupingEntryTable.onRowSelected.addListener(entry -> {
-			addFilter(entry);
+			if (entry.isSummary()) {
+				return;
+			}
+			if (entry.isApproximate()) {
+				storeExactCount(entry);
+			}
+			if (!addFilter(entry)) {
+				regroup();
+			}
 		});
 
 		ToolbarButtonGroup buttonGroup = toolbar.addButtonGroup(new ToolbarButtonGroup());
@@ -178,9 +199,10 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 			groupFilters.clear();
 			filtersTagComboBox.setValue(groupFilters);
 			getModelBuilderFactory().onGroupFilterChanged.fire(createFilter(groupFilters));
+			regroup();
 		});
 
-		getModelBuilderFactory().onTimeIntervalFilterChanged.addListener(() -> {
+		getModelBuilderFactory().onGeoDataChanged.addListener(() -> {
 			if (currentNode != null) {
 				group(currentNode);
 			}
@@ -209,42 +231,109 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 		return textField;
 	}
 
-	private void addFilter(GroupingEntry entry) {
+	private void storeExactCount(GroupingEntry entry) {
+		RecordSet geoRecords = getModelBuilderFactory().getGeoRecords();
+		if (!isExactCountContext(currentNode, geoRecords)) {
+			exactCounts = new HashMap<>();
+			exactCountNode = currentNode;
+			exactCountRecords = geoRecords;
+			exactCountFilters = getOtherNodeFilters(currentNode);
+		}
+		RecordSet records = facetFilterSets.getRecords(geoRecords, groupFilters, currentNode);
+		exactCounts.put(entry.getKey(), facetEngine.getExactCount(records, currentNode, entry));
+	}
+
+	private boolean isExactCountContext(GroupingNode node, RecordSet geoRecords) {
+		return exactCountNode == node && exactCountRecords == geoRecords && exactCountFilters.equals(getOtherNodeFilters(node));
+	}
+
+	private List<GroupFilter> getOtherNodeFilters(GroupingNode node) {
+		return groupFilters.stream().filter(filter -> filter.getGroupingNode() != node).collect(Collectors.toList());
+	}
+
+	private List<GroupingEntry> applyExactCounts(GroupingNode node, RecordSet geoRecords, List<GroupingEntry> entries) {
+		if (exactCounts.isEmpty() || !isExactCountContext(node, geoRecords)) {
+			return entries;
+		}
+		List<GroupingEntry> exactEntries = new ArrayList<>(entries.size());
+		for (GroupingEntry entry : entries) {
+			Integer count = entry.isApproximate() && !entry.isSummary() ? exactCounts.get(entry.getKey()) : null;
+			exactEntries.add(count != null ? new GroupingEntry(entry.getKey(), count, entry::getValue) : entry);
+		}
+		return exactEntries;
+	}
+
+	private boolean addFilter(GroupingEntry entry) {
 		ColumnIndex index = currentNode.getIndex();
 		GroupingNodeType nodeType = currentNode.getNodeType();
 		AbstractQueryFilter queryFilter = null;
-		if (nodeType == null || nodeType == GroupingNodeType.BY_VALUE) {
+		Object key = entry.getKey();
+		if (ReferenceAggregator.isReference(index)) {
+			queryFilter = ReferenceAggregator.createQueryFilter(index, key);
+		} else if (nodeType == null || nodeType == GroupingNodeType.BY_VALUE) {
 			switch (index.getType()) {
 				case BOOLEAN:
-					queryFilter = new BooleanQueryFilter(index.getName(), "true".equals(entry.getValue()) ? BooleanFilter.trueFilter() : BooleanFilter.falseFilter());
+					queryFilter = new BooleanQueryFilter(index.getName(), Boolean.TRUE.equals(key) ? BooleanFilter.trueFilter() : BooleanFilter.falseFilter());
 					break;
 				case SHORT:
 				case INT:
 				case LONG:
 				case FLOAT:
 				case DOUBLE:
-					queryFilter = new NumericQueryFilter(index.getName(), NumericFilter.equalsFilter(Double.parseDouble(entry.getValue())));
+					if (key instanceof Number) {
+						queryFilter = new NumericQueryFilter(index.getName(), NumericFilter.equalsFilter(((Number) key).doubleValue()));
+					}
 					break;
 				case TEXT:
-					queryFilter = new TextQueryFilter(index.getName(), TextFilter.textEqualsFilter(entry.getValue()));
+					queryFilter = key != null ? new TextQueryFilter(index.getName(), TextFilter.textEqualsFilter((String) key)) : new TextQueryFilter(index.getName(), TextFilter.emptyFilter(), TextFilter.textEqualsFilter("NULL"), TextFilter.textEqualsFilter("0"));
 					break;
 			}
 		} else if (nodeType == GroupingNodeType.TEXT_TERM) {
-			queryFilter = new TextQueryFilter(index.getName(), TextFilter.termEqualsFilter(entry.getValue()));
+			queryFilter = new TextQueryFilter(index.getName(), TextFilter.termEqualsFilter((String) key));
+		} else if (HistogramAggregator.isHistogram(nodeType)) {
+			queryFilter = HistogramAggregator.createQueryFilter(index, key);
+		} else if (DateBucketAggregator.getCalendarUnit(nodeType) != null) {
+			queryFilter = DateBucketAggregator.createQueryFilter(index, nodeType, SessionContext.current().getTimeZone(), key);
 		}
 
 		if (queryFilter != null) {
-			GroupFilter groupFilter = new GroupFilter(queryFilter, entry.getValue(), currentNode);
+			RecordSet geoRecords = getModelBuilderFactory().getGeoRecords();
+			RecordSet nodeRecords = facetFilterSets.getRecords(geoRecords, groupFilters, currentNode);
+			ZoneId zoneId = DateBucketAggregator.getCalendarUnit(nodeType) != null ? DateBucketAggregator.getZoneId(index, SessionContext.current().getTimeZone()) : null;
+			GroupFilter groupFilter = new GroupFilter(queryFilter, entry.getValue(), currentNode, key, zoneId);
 			groupFilters.add(groupFilter);
 			filtersTagComboBox.setValue(groupFilters);
-			getModelBuilderFactory().onGroupFilterChanged.fire(createFilter(groupFilters));
+			Filter filter = createFilter(groupFilters);
+			RecordSet result = getPostingsResult(nodeRecords, groupFilters);
+			if (result != null) {
+				facetFilterSets.putRecords(geoRecords, groupFilters, result);
+				getModelBuilderFactory().withPrecomputedResult(filter, geoRecords, result);
+			}
+			getModelBuilderFactory().onGroupFilterChanged.fire(filter);
+			regroup();
+			return true;
 		}
+		return false;
+	}
+
+	private RecordSet getPostingsResult(RecordSet nodeRecords, List<GroupFilter> groupFilters) {
+		List<Object> keys = new ArrayList<>();
+		for (GroupFilter groupFilter : groupFilters) {
+			if (groupFilter.getGroupingNode() == currentNode) {
+				if (!groupFilter.isKeyed()) {
+					return null;
+				}
+				keys.add(groupFilter.getKey());
+			}
+		}
+		return facetEngine.getPostings(currentNode, nodeRecords, keys);
 	}
 
 	private Filter createFilter(List<GroupFilter> groupFilters) {
 		if (groupFilters.isEmpty()) {
 			return null;
 		}
+		String signature = groupFilters.stream().anyMatch(f -> f.getSignature() == null) ? null : groupFilters.stream().map(GroupFilter::getSignature).sorted().collect(Collectors.joining(","));
 		Filter filter = new AndFilter();
 		TableIndex tableIndex = getModelBuilderFactory().getTableIndex();
 		groupFilters.stream().collect(Collectors.groupingBy(f -> f.getGroupingNode())).entrySet().forEach(entry -> {
@@ -259,38 +348,21 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 			}
 			filter.and(subFilter);
 		});
-		return filter;
+		return getModelBuilderFactory().withSignature(filter, signature);
+	}
+
+	private void regroup() {
+		if (currentNode != null) {
+			group(currentNode);
+		}
 	}
 
 	private void group(GroupingNode node) {
 		currentNode = node;
-		ColumnIndex index = node.getIndex();
-		GroupingNodeType type = node.getNodeType();
-		BitSet records = getModelBuilderFactory().getGeoBitSet();
-
-		if (type == null || type == GroupingNodeType.BY_VALUE || type == GroupingNodeType.TEXT_TERM) {
-			List<String> values = new ArrayList<>();
-			boolean isTerm = type == GroupingNodeType.TEXT_TERM;
-			for (int id = records.nextSetBit(0); id >= 0; id = records.nextSetBit(id + 1)) {
-				String value = index.getStringValue(id);
-				if (value == null || value.equals("NULL") || value.equals("0")) {
-					value = "(" + getLocalized(TeamAppsDictionary.EMPTY.getKey()) + ")";
-				}
-				if (isTerm) {
-					for (String s : splitTerms(value)) {
-						if (!s.isBlank()) {
-							values.add(s);
-						}
-					}
-				} else {
-					values.add(value);
-				}
-			}
-			List<GroupingEntry> entries = values.stream().collect(Collectors.groupingBy(s -> s)).entrySet().stream().map(entry -> new GroupingEntry(entry.getKey(), entry.getValue().size())).sorted(Comparator.comparingInt(GroupingEntry::getCount).reversed()).collect(Collectors.toList());
-			listTableModel.setList(entries);
-		} else {
-
-		}
+		RecordSet records = getModelBuilderFactory().getGeoRecords();
+		List<GroupFilter> filters = new ArrayList<>(groupFilters);
+		currentEntries = applyExactCounts(node, records, facetEngine.getEntries(node, groupingNode -> groupingNode == node ? facetFilterSets.getRecords(records, filters, groupingNode) : facetFilterSets.getCachedRecords(records, filters, groupingNode)));
+		listTableModel.setList(currentEntries);
 	}
 
 	private List<GroupingNode> createNodes() {
@@ -327,13 +399,4 @@ public class GroupingView<ENTITY extends Entity<ENTITY>> extends AbstractBuilder
 		return getView();
 	}
 
-
-	private static String[] splitTerms(String s) {
-		if (s == null || s.isBlank()) {
-			return null;
-		} else {
-			return s.split("[\\t,;.\\-:@\\[\\](){}_*/ ]");
-		}
-	}
-
 }
@@ -0,0 +1,337 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.filter.NumericQueryFilter;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.sort.RecordSorter;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.numeric.DoubleIndex;
+import org.teamapps.universaldb.index.numeric.FloatIndex;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.LongIndex;
+import org.teamapps.universaldb.index.numeric.NumericFilter;
+import org.teamapps.universaldb.index.numeric.ShortIndex;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntToDoubleFunction;
+
+public class HistogramAggregator extends GroupAggregator {
+
+	private static final int SAMPLE_SIZE = 8_192;
+	private static final int MAX_LOG_DECADES = 24;
+
+	private final GroupingNodeType nodeType;
+	private final IntToDoubleFunction valueReader;
+	private final boolean integral;
+	private int binCount = 20;
+	private double[] lowerBounds;
+	private int[] counts;
+	private double[] minValues;
+	private double[] maxValues;
+
+	public static boolean isHistogram(GroupingNodeType nodeType) {
+		return nodeType == GroupingNodeType.HISTOGRAM_EQUAL_WIDTH || nodeType == GroupingNodeType.HISTOGRAM_EQUAL_DEPTH || nodeType == GroupingNodeType.HISTOGRAM_LOG;
+	}
+
+	public static NumericQueryFilter createQueryFilter(ColumnIndex index, Object key) {
+		NumericRange range = (NumericRange) key;
+		boolean openMin = range.getMin() == Double.NEGATIVE_INFINITY;
+		boolean openMax = range.getMax() == Double.POSITIVE_INFINITY;
+		if (openMin && openMax) {
+			return new NumericQueryFilter(index.getName(), NumericFilter.smallerEqualsFilter(Double.MAX_VALUE));
+		} else if (openMin) {
+			return new NumericQueryFilter(index.getName(), NumericFilter.smallerEqualsFilter(range.getMax()));
+		} else if (openMax) {
+			return new NumericQueryFilter(index.getName(), NumericFilter.greaterEqualsFilter(range.getMin()));
+		}
+		return new NumericQueryFilter(index.getName(), NumericFilter.betweenFilter(range.getMin(), range.getMax()));
+	}
+
+	public static IntToDoubleFunction createValueReader(ColumnIndex index) {
+		switch (index.getType()) {
+			case SHORT:
+				ShortIndex shortIndex = (ShortIndex) index;
+				return shortIndex::getValue;
+			case INT:
+				IntegerIndex integerIndex = (IntegerIndex) index;
+				return integerIndex::getValue;
+			case LONG:
+				LongIndex longIndex = (LongIndex) index;
+				return longIndex::getValue;
+			case FLOAT:
+				FloatIndex floatIndex = (FloatIndex) index;
+				return floatIndex::getValue;
+			case DOUBLE:
+				DoubleIndex doubleIndex = (DoubleIndex) index;
+				return doubleIndex::getValue;
+			default:
+				return null;
+		}
+	}
+
+	public HistogramAggregator(ColumnIndex index, GroupingNodeType nodeType, String emptyLabel, Locale locale) {
+		this(index, createValueReader(index), index.getType() == IndexType.SHORT || index.getType() == IndexType.INT || index.getType() == IndexType.LONG, nodeType, emptyLabel, locale);
+	}
+
+	HistogramAggregator(ColumnIndex index, IntToDoubleFunction valueReader, boolean integral, GroupingNodeType nodeType, String emptyLabel, Locale locale) {
+		super(index, emptyLabel);
+		this.nodeType = nodeType;
+		this.valueReader = valueReader;
+		this.integral = integral;
+		this.locale = locale;
+	}
+
+	public int getBinCount() {
+		return binCount;
+	}
+
+	public HistogramAggregator setBinCount(int binCount) {
+		this.binCount = Math.max(1, binCount);
+		return this;
+	}
+
+	@Override
+	public void prepare(int[] recordIds) {
+		int sampleSize = Math.min(recordIds.length, SAMPLE_SIZE);
+		double[] sample = new double[sampleSize];
+		int size = 0;
+		for (int i = 0; i < sampleSize; i++) {
+			double value = valueReader.applyAsDouble(recordIds[(int) ((long) i * recordIds.length / sampleSize)]);
+			if (!Double.isNaN(value)) {
+				sample[size++] = value;
+			}
+		}
+		sample = Arrays.copyOf(sample, size);
+		Arrays.sort(sample);
+		if (size == 0) {
+			lowerBounds = new double[]{0};
+		} else {
+			switch (nodeType) {
+				case HISTOGRAM_EQUAL_DEPTH:
+					lowerBounds = createEqualDepthBounds(sample);
+					break;
+				case HISTOGRAM_LOG:
+					lowerBounds = createLogBounds(sample);
+					break;
+				default:
+					lowerBounds = createEqualWidthBounds(sample[0], sample[size - 1]);
+			}
+		}
+		counts = new int[lowerBounds.length];
+		minValues = new double[lowerBounds.length];
+		maxValues = new double[lowerBounds.length];
+		Arrays.fill(minValues, Double.POSITIVE_INFINITY);
+		Arrays.fill(maxValues, Double.NEGATIVE_INFINITY);
+	}
+
+	@Override
+	public void addAll(RecordSet records) {
+		if (counts == null) {
+			prepare(RecordSorter.toArray(records));
+		}
+		super.addAll(records);
+	}
+
+	@Override
+	protected int update(int recordId, int delta) {
+		if (counts == null) {
+			throw new IllegalStateException("Histogram bins are not prepared");
+		}
+		double value = valueReader.applyAsDouble(recordId);
+		if (Double.isNaN(value)) {
+			return -1;
+		}
+		int bin = findBin(value);
+		counts[bin] += delta;
+		if (counts[bin] <= 0) {
+			counts[bin] = 0;
+			minValues[bin] = Double.POSITIVE_INFINITY;
+			maxValues[bin] = Double.NEGATIVE_INFINITY;
+		} else if (delta > 0) {
+			minValues[bin] = Math.min(minValues[bin], value);
+			maxValues[bin] = Math.max(maxValues[bin], value);
+		}
+		return bin;
+	}
+
+	@Override
+	public void merge(GroupAggregator other) {
+		HistogramAggregator aggregator = (HistogramAggregator) other;
+		if (!Arrays.equals(lowerBounds, aggregator.lowerBounds)) {
+			throw new IllegalArgumentException("Histogram bins differ");
+		}
+		for (int bin = 0; bin < counts.length; bin++) {
+			counts[bin] += aggregator.counts[bin];
+			minValues[bin] = Math.min(minValues[bin], aggregator.minValues[bin]);
+			maxValues[bin] = Math.max(maxValues[bin], aggregator.maxValues[bin]);
+			mergePostings(other, bin, bin);
+		}
+	}
+
+	@Override
+	protected int getGroupIndex(Object key) {
+		return lowerBounds != null && key instanceof NumericRange ? findBin(((NumericRange) key).getMin()) : -1;
+	}
+
+	@Override
+	public int getGroupCount() {
+		return counts != null ? counts.length : 0;
+	}
+
+	@Override
+	protected int countMatches(int recordId, Object key) {
+		return ((NumericRange) key).contains(valueReader.applyAsDouble(recordId)) ? 1 : 0;
+	}
+
+	@Override
+	public List<GroupingEntry> getEntries() {
+		List<GroupingEntry> entries = new ArrayList<>();
+		collectEntries(entries);
+		return entries;
+	}
+
+	@Override
+	protected void collectEntries(List<GroupingEntry> entries) {
+		if (counts == null) {
+			return;
+		}
+		NumberFormat numberFormat = NumberFormat.getInstance(locale);
+		for (int bin = 0; bin < counts.length; bin++) {
+			if (counts[bin] > 0) {
+				double minValue = minValues[bin];
+				double maxValue = maxValues[bin];
+				entries.add(new GroupingEntry(getBinRange(bin), counts[bin], () -> createRangeLabel(numberFormat, minValue, maxValue)));
+			}
+		}
+	}
+
+	NumericRange getBinRange(int bin) {
+		double min = bin == 0 ? Double.NEGATIVE_INFINITY : lowerBounds[bin];
+		double max = bin == lowerBounds.length - 1 ? Double.POSITIVE_INFINITY : getUpperBound(lowerBounds[bin + 1]);
+		return new NumericRange(min, max);
+	}
+
+	private double getUpperBound(double nextLowerBound) {
+		return integral ? Math.ceil(nextLowerBound) - 1 : Math.nextDown(nextLowerBound);
+	}
+
+	private String createRangeLabel(NumberFormat numberFormat, double minValue, double maxValue) {
+		if (minValue == maxValue) {
+			return numberFormat.format(minValue);
+		}
+		return numberFormat.format(minValue) + " - " + numberFormat.format(maxValue);
+	}
+
+	private int findBin(double value) {
+		int pos = Arrays.binarySearch(lowerBounds, value);
+		if (pos < 0) {
+			pos = -pos - 2;
+		}
+		return Math.max(0, pos);
+	}
+
+	private double[] createEqualWidthBounds(double minValue, double maxValue) {
+		double step = createNiceStep((maxValue - minValue) / binCount);
+		if (integral) {
+			step = Math.max(1, Math.ceil(step));
+		}
+		if (step <= 0 || Double.isInfinite(step)) {
+			return new double[]{minValue};
+		}
+		double start = Math.floor(minValue / step) * step;
+		int bins = (int) Math.min(binCount * 4L, (long) Math.floor((maxValue - start) / step) + 1);
+		double[] bounds = new double[bins];
+		for (int i = 0; i < bins; i++) {
+			bounds[i] = start + i * step;
+		}
+		return bounds;
+	}
+
+	private double[] createEqualDepthBounds(double[] sample) {
+		double[] bounds = new double[binCount];
+		int bins = 0;
+		bounds[bins++] = sample[0];
+		for (int i = 1; i < binCount; i++) {
+			double bound = sample[(int) ((long) i * sample.length / binCount)];
+			if (integral) {
+				bound = Math.ceil(bound);
+			}
+			if (bound > bounds[bins - 1]) {
+				bounds[bins++] = bound;
+			}
+		}
+		return Arrays.copyOf(bounds, bins);
+	}
+
+	private double[] createLogBounds(double[] sample) {
+		double minValue = sample[0];
+		double maxValue = sample[sample.length - 1];
+		double maxAbsValue = Math.max(Math.abs(minValue), Math.abs(maxValue));
+		if (maxAbsValue == 0) {
+			return new double[]{0};
+		}
+		double minAbsValue = Double.POSITIVE_INFINITY;
+		for (double value : sample) {
+			if (value != 0) {
+				minAbsValue = Math.min(minAbsValue, Math.abs(value));
+			}
+		}
+		int maxExponent = (int) Math.floor(Math.log10(maxAbsValue));
+		int minExponent = Math.max(maxExponent - MAX_LOG_DECADES, (int) Math.floor(Math.log10(minAbsValue)));
+		List<Double> bounds = new ArrayList<>();
+		if (minValue < 0) {
+			for (int exponent = (int) Math.floor(Math.log10(-minValue)); exponent >= minExponent; exponent--) {
+				bounds.add(-Math.pow(10, exponent + 1));
+			}
+			bounds.add(-Math.pow(10, minExponent));
+		}
+		if (minValue < Math.pow(10, minExponent)) {
+			bounds.add(0d);
+		}
+		if (maxValue > 0) {
+			for (int exponent = minExponent; exponent <= maxExponent; exponent++) {
+				bounds.add(Math.pow(10, exponent));
+			}
+		}
+		return bounds.stream().mapToDouble(Double::doubleValue).toArray();
+	}
+
+	private static double createNiceStep(double rawStep) {
+		if (rawStep <= 0 || Double.isNaN(rawStep)) {
+			return 0;
+		}
+		double magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
+		double fraction = rawStep / magnitude;
+		if (fraction > 5) {
+			return 10 * magnitude;
+		} else if (fraction > 2) {
+			return 5 * magnitude;
+		} else if (fraction > 1) {
+			return 2 * magnitude;
+		}
+		return magnitude;
+	}
+}
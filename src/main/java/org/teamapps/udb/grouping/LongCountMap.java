@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+public class LongCountMap {
+
+	private long[] keys;
+	private int[] counts;
+	private int[] recordIds;
+	private int[] groupIndices;
+	private boolean[] used;
+	private int groupCount;
+	private int size;
+	private int mask;
+
+	public LongCountMap() {
+		this(64);
+	}
+
+	public LongCountMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+		keys = new long[capacity];
+		counts = new int[capacity];
+		recordIds = new int[capacity];
+		groupIndices = new int[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+	}
+
+	public int increment(long key, int recordId) {
+		return add(key, recordId, 1);
+	}
+
+	public int add(long key, int recordId, int delta) {
+		int slot = findSlot(key);
+		if (!used[slot]) {
+			int groupIndex = groupCount++;
+			used[slot] = true;
+			keys[slot] = key;
+			recordIds[slot] = recordId;
+			counts[slot] = delta;
+			groupIndices[slot] = groupIndex;
+			if (++size * 2 > keys.length) {
+				grow();
+			}
+			return groupIndex;
+		} else {
+			if (counts[slot] <= 0) {
+				recordIds[slot] = recordId;
+			}
+			counts[slot] += delta;
+			return groupIndices[slot];
+		}
+	}
+
+	public int get(long key) {
+		return counts[findSlot(key)];
+	}
+
+	public int getGroupIndex(long key) {
+		int slot = findSlot(key);
+		return used[slot] ? groupIndices[slot] : -1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return keys.length;
+	}
+
+	public boolean isUsed(int slot) {
+		return used[slot];
+	}
+
+	public long getKey(int slot) {
+		return keys[slot];
+	}
+
+	public int getCount(int slot) {
+		return counts[slot];
+	}
+
+	public int getRecordId(int slot) {
+		return recordIds[slot];
+	}
+
+	public int getSlotGroupIndex(int slot) {
+		return groupIndices[slot];
+	}
+
+	private int findSlot(long key) {
+		int slot = hash(key) & mask;
+		while (used[slot] && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		int[] oldRecordIds = recordIds;
+		int[] oldGroupIndices = groupIndices;
+		boolean[] oldUsed = used;
+		keys = new long[oldKeys.length * 2];
+		counts = new int[oldKeys.length * 2];
+		recordIds = new int[oldKeys.length * 2];
+		groupIndices = new int[oldKeys.length * 2];
+		used = new boolean[oldKeys.length * 2];
+		mask = keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = findSlot(oldKeys[i]);
+				used[slot] = true;
+				keys[slot] = oldKeys[i];
+				counts[slot] = oldCounts[i];
+				recordIds[slot] = oldRecordIds[i];
+				groupIndices[slot] = oldGroupIndices[i];
+			}
+		}
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,63 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import java.util.Objects;
+
+public class NumericRange {
+
+	private final double min;
+	private final double max;
+
+	public NumericRange(double min, double max) {
+		this.min = min;
+		this.max = max;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public boolean contains(double value) {
+		return value >= min && value <= max;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		NumericRange that = (NumericRange) o;
+		return Double.compare(that.min, min) == 0 && Double.compare(that.max, max) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(min, max);
+	}
+
+	@Override
+	public String toString() {
+		return min + " - " + max;
+	}
+}
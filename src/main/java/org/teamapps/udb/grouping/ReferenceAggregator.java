@@ -0,0 +1,155 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.teamapps.udb.filter.AbstractQueryFilter;
+import org.teamapps.udb.filter.MultiReferenceQueryFilter;
+import org.teamapps.udb.filter.NumericQueryFilter;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.ColumnType;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.numeric.NumericFilter;
+import org.teamapps.universaldb.index.reference.multi.MultiReferenceFilter;
+import org.teamapps.universaldb.index.reference.multi.MultiReferenceIndex;
+import org.teamapps.universaldb.index.reference.single.SingleReferenceIndex;
+import org.teamapps.universaldb.index.text.TextIndex;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class ReferenceAggregator extends GroupAggregator {
+
+	private static final int MAX_LABEL_COLUMNS = 3;
+
+	private final SingleReferenceIndex singleReferenceIndex;
+	private final MultiReferenceIndex multiReferenceIndex;
+	private final LongCountMap countMap = new LongCountMap();
+
+	public static boolean isReference(ColumnIndex index) {
+		return index.getColumnType() == ColumnType.SINGLE_REFERENCE || index.getColumnType() == ColumnType.MULTI_REFERENCE;
+	}
+
+	public static AbstractQueryFilter createQueryFilter(ColumnIndex index, Object key) {
+		if (index.getColumnType() == ColumnType.MULTI_REFERENCE) {
+			MultiReferenceFilter filter = key == null ? MultiReferenceFilter.createIsEmptyFilter() : MultiReferenceFilter.createContainsAnyFilter(Collections.singleton((Integer) key));
+			return new MultiReferenceQueryFilter(index.getName(), filter);
+		}
+		return new NumericQueryFilter(index.getName(), NumericFilter.equalsFilter(key == null ? 0 : (Integer) key));
+	}
+
+	public ReferenceAggregator(ColumnIndex index, String emptyLabel) {
+		super(index, emptyLabel);
+		this.singleReferenceIndex = index.getColumnType() == ColumnType.SINGLE_REFERENCE ? (SingleReferenceIndex) index : null;
+		this.multiReferenceIndex = index.getColumnType() == ColumnType.MULTI_REFERENCE ? (MultiReferenceIndex) index : null;
+	}
+
+	@Override
+	protected int update(int recordId, int delta) {
+		if (singleReferenceIndex != null) {
+			return countMap.add(singleReferenceIndex.getValue(recordId), recordId, delta);
+		}
+		List<Integer> references = multiReferenceIndex.getReferencesAsList(recordId);
+		if (references == null || references.isEmpty()) {
+			return countMap.add(0, recordId, delta);
+		}
+		for (Integer reference : references) {
+			countMap.add(reference, recordId, delta);
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean supportsPostings() {
+		return singleReferenceIndex != null;
+	}
+
+	@Override
+	protected int getGroupIndex(Object key) {
+		return countMap.getGroupIndex(key == null ? 0 : (Integer) key);
+	}
+
+	@Override
+	public void merge(GroupAggregator other) {
+		LongCountMap otherMap = ((ReferenceAggregator) other).countMap;
+		for (int slot = 0; slot < otherMap.capacity(); slot++) {
+			if (otherMap.isUsed(slot)) {
+				int group = countMap.add(otherMap.getKey(slot), otherMap.getRecordId(slot), otherMap.getCount(slot));
+				mergePostings(other, otherMap.getSlotGroupIndex(slot), group);
+			}
+		}
+	}
+
+	@Override
+	public int getGroupCount() {
+		return countMap.size();
+	}
+
+	@Override
+	protected int countMatches(int recordId, Object key) {
+		int reference = key == null ? 0 : (Integer) key;
+		if (singleReferenceIndex != null) {
+			return singleReferenceIndex.getValue(recordId) == reference ? 1 : 0;
+		}
+		List<Integer> references = multiReferenceIndex.getReferencesAsList(recordId);
+		if (references == null || references.isEmpty()) {
+			return reference == 0 ? 1 : 0;
+		}
+		return references.contains(reference) ? 1 : 0;
+	}
+
+	@Override
+	protected void collectEntries(List<GroupingEntry> entries) {
+		List<TextIndex> labelIndices = null;
+		for (int slot = 0; slot < countMap.capacity(); slot++) {
+			if (countMap.isUsed(slot) && countMap.getCount(slot) > 0) {
+				int reference = (int) countMap.getKey(slot);
+				if (reference == 0) {
+					entries.add(new GroupingEntry(null, countMap.getCount(slot), () -> emptyLabel));
+				} else {
+					if (labelIndices == null) {
+						labelIndices = getLabelIndices();
+					}
+					List<TextIndex> textIndices = labelIndices;
+					entries.add(new GroupingEntry(reference, countMap.getCount(slot), () -> createReferenceLabel(textIndices, reference)));
+				}
+			}
+		}
+	}
+
+	private List<TextIndex> getLabelIndices() {
+		TableIndex referencedTable = singleReferenceIndex != null ? singleReferenceIndex.getReferencedTable() : multiReferenceIndex.getReferencedTable();
+		return referencedTable.getColumnIndices().stream()
+				.filter(c -> c.getColumnType() == ColumnType.TEXT)
+				.limit(MAX_LABEL_COLUMNS)
+				.map(c -> (TextIndex) c)
+				.collect(Collectors.toList());
+	}
+
+	private String createReferenceLabel(List<TextIndex> textIndices, int reference) {
+		String label = textIndices.stream()
+				.map(textIndex -> textIndex.getValue(reference))
+				.filter(Objects::nonNull)
+				.filter(value -> !value.isBlank())
+				.collect(Collectors.joining(", "));
+		return label.isEmpty() ? "#" + reference : label;
+	}
+}
@@ -0,0 +1,191 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpaceSavingSketch<KEY> {
+
+	private final int capacity;
+	private final Map<KEY, Counter<KEY>> counters = new HashMap<>();
+	private final Counter<KEY>[] heap;
+	private int size;
+	private long total;
+
+	public static class Counter<KEY> {
+		private KEY key;
+		private long count;
+		private long error;
+		private int recordId;
+		private int heapIndex;
+
+		public KEY getKey() {
+			return key;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getError() {
+			return error;
+		}
+
+		public long getGuaranteedCount() {
+			return count - error;
+		}
+
+		public int getRecordId() {
+			return recordId;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public SpaceSavingSketch(int capacity) {
+		this.capacity = capacity;
+		this.heap = new Counter[capacity];
+	}
+
+	public void add(KEY key, int recordId, long delta) {
+		total += delta;
+		Counter<KEY> counter = counters.get(key);
+		if (counter != null) {
+			counter.count += delta;
+			siftDown(counter.heapIndex);
+		} else if (size < capacity) {
+			counter = new Counter<>();
+			counter.key = key;
+			counter.count = delta;
+			counter.recordId = recordId;
+			counter.heapIndex = size;
+			heap[size++] = counter;
+			counters.put(key, counter);
+			siftUp(counter.heapIndex);
+		} else {
+			counter = heap[0];
+			counters.remove(counter.key);
+			counter.key = key;
+			counter.error = counter.count;
+			counter.count += delta;
+			counter.recordId = recordId;
+			counters.put(key, counter);
+			siftDown(0);
+		}
+	}
+
+	public void merge(SpaceSavingSketch<KEY> other) {
+		long minCount = getMinCount();
+		long otherMinCount = other.getMinCount();
+		List<Counter<KEY>> merged = new ArrayList<>(size + other.size);
+		for (int i = 0; i < size; i++) {
+			Counter<KEY> counter = heap[i];
+			if (!other.counters.containsKey(counter.key)) {
+				counter.count += otherMinCount;
+				counter.error += otherMinCount;
+			}
+			merged.add(counter);
+		}
+		for (int i = 0; i < other.size; i++) {
+			Counter<KEY> otherCounter = other.heap[i];
+			Counter<KEY> counter = counters.get(otherCounter.key);
+			if (counter != null) {
+				counter.count += otherCounter.count;
+				counter.error += otherCounter.error;
+			} else {
+				counter = new Counter<>();
+				counter.key = otherCounter.key;
+				counter.count = otherCounter.count + minCount;
+				counter.error = otherCounter.error + minCount;
+				counter.recordId = otherCounter.recordId;
+				merged.add(counter);
+			}
+		}
+		merged.sort(Comparator.comparingLong((Counter<KEY> counter) -> counter.count).reversed());
+		counters.clear();
+		size = Math.min(capacity, merged.size());
+		for (int i = 0; i < size; i++) {
+			Counter<KEY> counter = merged.get(i);
+			counter.heapIndex = i;
+			heap[i] = counter;
+			counters.put(counter.key, counter);
+		}
+		Arrays.fill(heap, size, capacity, null);
+		for (int i = size / 2 - 1; i >= 0; i--) {
+			siftDown(i);
+		}
+		total += other.total;
+	}
+
+	private long getMinCount() {
+		return size < capacity ? 0 : heap[0].count;
+	}
+
+	public List<Counter<KEY>> getCounters() {
+		List<Counter<KEY>> list = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+		list.sort(Comparator.comparingLong((Counter<KEY> counter) -> counter.count).reversed());
+		return list;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private void siftUp(int pos) {
+		Counter<KEY> counter = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (heap[parent].count <= counter.count) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			heap[pos].heapIndex = pos;
+			pos = parent;
+		}
+		heap[pos] = counter;
+		counter.heapIndex = pos;
+	}
+
+	private void siftDown(int pos) {
+		Counter<KEY> counter = heap[pos];
+		int child;
+		while ((child = 2 * pos + 1) < size) {
+			if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+				child++;
+			}
+			if (heap[child].count >= counter.count) {
+				break;
+			}
+			heap[pos] = heap[child];
+			heap[pos].heapIndex = pos;
+			pos = child;
+		}
+		heap[pos] = counter;
+		counter.heapIndex = pos;
+	}
+}
@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.recordset;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class BitSetRecordSet implements RecordSet {
+
+	private static final int RANK_BLOCK_WORDS = 8;
+
+	private final BitSet bitSet;
+	private final int cardinality;
+	private volatile int[] blockRanks;
+
+	public BitSetRecordSet(BitSet bitSet) {
+		this.bitSet = bitSet;
+		this.cardinality = bitSet.cardinality();
+	}
+
+	@Override
+	public int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	public boolean contains(int id) {
+		return bitSet.get(id);
+	}
+
+	@Override
+	public int nextRecord(int fromId) {
+		return bitSet.nextSetBit(fromId);
+	}
+
+	@Override
+	public int select(int rank) {
+		if (rank < 0 || rank >= cardinality) {
+			return -1;
+		}
+		int[] ranks = getBlockRanks();
+		int low = 0;
+		int high = ranks.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (ranks[mid] <= rank) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		int id = bitSet.nextSetBit(low * RANK_BLOCK_WORDS * 64);
+		for (int i = ranks[low]; i < rank; i++) {
+			id = bitSet.nextSetBit(id + 1);
+		}
+		return id;
+	}
+
+	private int[] getBlockRanks() {
+		int[] ranks = blockRanks;
+		if (ranks == null) {
+			long[] words = bitSet.toLongArray();
+			ranks = new int[Math.max(1, (words.length + RANK_BLOCK_WORDS - 1) / RANK_BLOCK_WORDS)];
+			int count = 0;
+			for (int i = 0; i < words.length; i++) {
+				if (i % RANK_BLOCK_WORDS == 0) {
+					ranks[i / RANK_BLOCK_WORDS] = count;
+				}
+				count += Long.bitCount(words[i]);
+			}
+			blockRanks = ranks;
+		}
+		return ranks;
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int next = bitSet.nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public int nextInt() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				int id = next;
+				next = id == Integer.MAX_VALUE ? -1 : bitSet.nextSetBit(id + 1);
+				return id;
+			}
+		};
+	}
+
+	@Override
+	public RecordSet and(RecordSet other) {
+		BitSet result = toBitSet();
+		result.and(other.toBitSet());
+		return RecordSet.of(result);
+	}
+
+	@Override
+	public RecordSet or(RecordSet other) {
+		BitSet result = toBitSet();
+		result.or(other.toBitSet());
+		return RecordSet.of(result);
+	}
+
+	@Override
+	public RecordSet andNot(RecordSet other) {
+		BitSet result = toBitSet();
+		result.andNot(other.toBitSet());
+		return RecordSet.of(result);
+	}
+
+	@Override
+	public BitSet toBitSet() {
+		return (BitSet) bitSet.clone();
+	}
+
+	@Override
+	public long getSizeInBytes() {
+		return bitSet.size() / 8;
+	}
+}
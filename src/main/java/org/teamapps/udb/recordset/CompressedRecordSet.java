@@ -0,0 +1,536 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.recordset;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class CompressedRecordSet implements RecordSet {
+
+	private static final int CONTAINER_WORDS = 1024;
+	private static final int ARRAY_CONTAINER_LIMIT = 4096;
+
+	private final char[] keys;
+	private final Container[] containers;
+	private final int size;
+	private final int cardinality;
+	private volatile int[] containerRanks;
+
+	private CompressedRecordSet(char[] keys, Container[] containers, int size) {
+		this.keys = keys;
+		this.containers = containers;
+		this.size = size;
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			count += containers[i].cardinality();
+		}
+		this.cardinality = count;
+	}
+
+	public static CompressedRecordSet create(BitSet bitSet) {
+		long[] words = bitSet.toLongArray();
+		int chunks = (words.length + CONTAINER_WORDS - 1) / CONTAINER_WORDS;
+		char[] keys = new char[chunks];
+		Container[] containers = new Container[chunks];
+		int size = 0;
+		for (int chunk = 0; chunk < chunks; chunk++) {
+			int from = chunk * CONTAINER_WORDS;
+			Container container = Container.fromWords(words, from, Math.min(words.length, from + CONTAINER_WORDS));
+			if (container != null) {
+				keys[size] = (char) chunk;
+				containers[size++] = container;
+			}
+		}
+		return new CompressedRecordSet(keys, containers, size);
+	}
+
+	@Override
+	public int cardinality() {
+		return cardinality;
+	}
+
+	@Override
+	public boolean contains(int id) {
+		int index = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+		return index >= 0 && containers[index].contains(id & 0xFFFF);
+	}
+
+	@Override
+	public int nextRecord(int fromId) {
+		if (fromId < 0) {
+			fromId = 0;
+		}
+		char key = (char) (fromId >>> 16);
+		int index = Arrays.binarySearch(keys, 0, size, key);
+		int low = fromId & 0xFFFF;
+		if (index < 0) {
+			index = -index - 1;
+			low = 0;
+		}
+		for (; index < size; index++) {
+			int value = containers[index].next(low);
+			if (value >= 0) {
+				return keys[index] << 16 | value;
+			}
+			low = 0;
+		}
+		return -1;
+	}
+
+	@Override
+	public int select(int rank) {
+		if (rank < 0 || rank >= cardinality) {
+			return -1;
+		}
+		int[] ranks = getContainerRanks();
+		int low = 0;
+		int high = size - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (ranks[mid] <= rank) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return keys[low] << 16 | containers[low].select(rank - ranks[low]);
+	}
+
+	private int[] getContainerRanks() {
+		int[] ranks = containerRanks;
+		if (ranks == null) {
+			ranks = new int[size];
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				ranks[i] = count;
+				count += containers[i].cardinality();
+			}
+			containerRanks = ranks;
+		}
+		return ranks;
+	}
+
+	static int selectInWord(long word, int rank) {
+		for (int i = 0; i < rank; i++) {
+			word &= word - 1;
+		}
+		return Long.numberOfTrailingZeros(word);
+	}
+
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new PrimitiveIterator.OfInt() {
+			private int index;
+			private int low;
+			private int next = advance();
+
+			private int advance() {
+				for (; index < size; index++) {
+					int value = low <= 0xFFFF ? containers[index].next(low) : -1;
+					if (value >= 0) {
+						low = value + 1;
+						return keys[index] << 16 | value;
+					}
+					low = 0;
+				}
+				return -1;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next >= 0;
+			}
+
+			@Override
+			public int nextInt() {
+				if (next < 0) {
+					throw new NoSuchElementException();
+				}
+				int id = next;
+				next = advance();
+				return id;
+			}
+		};
+	}
+
+	@Override
+	public RecordSet and(RecordSet other) {
+		if (!(other instanceof CompressedRecordSet)) {
+			return and(create(other.toBitSet()));
+		}
+		CompressedRecordSet set = (CompressedRecordSet) other;
+		int capacity = Math.min(size, set.size);
+		char[] resultKeys = new char[capacity];
+		Container[] resultContainers = new Container[capacity];
+		int resultSize = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < set.size) {
+			if (keys[i] < set.keys[j]) {
+				i++;
+			} else if (keys[i] > set.keys[j]) {
+				j++;
+			} else {
+				Container container = containers[i].and(set.containers[j]);
+				if (container != null) {
+					resultKeys[resultSize] = keys[i];
+					resultContainers[resultSize++] = container;
+				}
+				i++;
+				j++;
+			}
+		}
+		return new CompressedRecordSet(resultKeys, resultContainers, resultSize);
+	}
+
+	@Override
+	public RecordSet or(RecordSet other) {
+		if (!(other instanceof CompressedRecordSet)) {
+			BitSet result = other.toBitSet();
+			result.or(toBitSet());
+			return RecordSet.of(result);
+		}
+		CompressedRecordSet set = (CompressedRecordSet) other;
+		int capacity = size + set.size;
+		char[] resultKeys = new char[capacity];
+		Container[] resultContainers = new Container[capacity];
+		int resultSize = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size || j < set.size) {
+			if (j == set.size || (i < size && keys[i] < set.keys[j])) {
+				resultKeys[resultSize] = keys[i];
+				resultContainers[resultSize++] = containers[i++];
+			} else if (i == size || keys[i] > set.keys[j]) {
+				resultKeys[resultSize] = set.keys[j];
+				resultContainers[resultSize++] = set.containers[j++];
+			} else {
+				resultKeys[resultSize] = keys[i];
+				resultContainers[resultSize++] = containers[i++].or(set.containers[j++]);
+			}
+		}
+		return new CompressedRecordSet(resultKeys, resultContainers, resultSize);
+	}
+
+	@Override
+	public RecordSet andNot(RecordSet other) {
+		if (!(other instanceof CompressedRecordSet)) {
+			return andNot(create(other.toBitSet()));
+		}
+		CompressedRecordSet set = (CompressedRecordSet) other;
+		char[] resultKeys = new char[size];
+		Container[] resultContainers = new Container[size];
+		int resultSize = 0;
+		int j = 0;
+		for (int i = 0; i < size; i++) {
+			while (j < set.size && set.keys[j] < keys[i]) {
+				j++;
+			}
+			Container container = j < set.size && set.keys[j] == keys[i] ? containers[i].andNot(set.containers[j]) : containers[i];
+			if (container != null) {
+				resultKeys[resultSize] = keys[i];
+				resultContainers[resultSize++] = container;
+			}
+		}
+		return new CompressedRecordSet(resultKeys, resultContainers, resultSize);
+	}
+
+	@Override
+	public BitSet toBitSet() {
+		if (size == 0) {
+			return new BitSet();
+		}
+		long[] words = new long[(keys[size - 1] + 1) * CONTAINER_WORDS];
+		for (int i = 0; i < size; i++) {
+			containers[i].writeTo(words, keys[i] * CONTAINER_WORDS);
+		}
+		return BitSet.valueOf(words);
+	}
+
+	@Override
+	public long getSizeInBytes() {
+		long bytes = size * 6L;
+		for (int i = 0; i < size; i++) {
+			bytes += containers[i].getSizeInBytes();
+		}
+		return bytes;
+	}
+
+	private static abstract class Container {
+
+		static Container fromWords(long[] words, int from, int to) {
+			int cardinality = 0;
+			for (int i = from; i < to; i++) {
+				cardinality += Long.bitCount(words[i]);
+			}
+			if (cardinality == 0) {
+				return null;
+			} else if (cardinality <= ARRAY_CONTAINER_LIMIT) {
+				char[] values = new char[cardinality];
+				int pos = 0;
+				for (int i = from; i < to; i++) {
+					long word = words[i];
+					while (word != 0) {
+						values[pos++] = (char) ((i - from) * 64 + Long.numberOfTrailingZeros(word));
+						word &= word - 1;
+					}
+				}
+				return new ArrayContainer(values);
+			} else {
+				long[] containerWords = new long[CONTAINER_WORDS];
+				System.arraycopy(words, from, containerWords, 0, to - from);
+				return new BitmapContainer(containerWords, cardinality);
+			}
+		}
+
+		abstract int cardinality();
+
+		abstract boolean contains(int low);
+
+		abstract int next(int low);
+
+		abstract int select(int rank);
+
+		abstract void writeTo(long[] words, int offset);
+
+		abstract long getSizeInBytes();
+
+		long[] toWords() {
+			long[] words = new long[CONTAINER_WORDS];
+			writeTo(words, 0);
+			return words;
+		}
+
+		Container and(Container other) {
+			long[] words = toWords();
+			long[] otherWords = other.toWords();
+			for (int i = 0; i < CONTAINER_WORDS; i++) {
+				words[i] &= otherWords[i];
+			}
+			return fromWords(words, 0, CONTAINER_WORDS);
+		}
+
+		Container or(Container other) {
+			long[] words = toWords();
+			long[] otherWords = other.toWords();
+			for (int i = 0; i < CONTAINER_WORDS; i++) {
+				words[i] |= otherWords[i];
+			}
+			return fromWords(words, 0, CONTAINER_WORDS);
+		}
+
+		Container andNot(Container other) {
+			long[] words = toWords();
+			long[] otherWords = other.toWords();
+			for (int i = 0; i < CONTAINER_WORDS; i++) {
+				words[i] &= ~otherWords[i];
+			}
+			return fromWords(words, 0, CONTAINER_WORDS);
+		}
+	}
+
+	private static class ArrayContainer extends Container {
+
+		private final char[] values;
+
+		ArrayContainer(char[] values) {
+			this.values = values;
+		}
+
+		@Override
+		int cardinality() {
+			return values.length;
+		}
+
+		@Override
+		boolean contains(int low) {
+			return Arrays.binarySearch(values, (char) low) >= 0;
+		}
+
+		@Override
+		int next(int low) {
+			int index = Arrays.binarySearch(values, (char) low);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			return index < values.length ? values[index] : -1;
+		}
+
+		@Override
+		int select(int rank) {
+			return values[rank];
+		}
+
+		@Override
+		void writeTo(long[] words, int offset) {
+			for (char value : values) {
+				words[offset + (value >>> 6)] |= 1L << value;
+			}
+		}
+
+		@Override
+		long getSizeInBytes() {
+			return values.length * 2L + 16;
+		}
+
+		@Override
+		Container and(Container other) {
+			if (!(other instanceof ArrayContainer)) {
+				char[] result = new char[values.length];
+				int size = 0;
+				for (char value : values) {
+					if (other.contains(value)) {
+						result[size++] = value;
+					}
+				}
+				return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+			}
+			char[] otherValues = ((ArrayContainer) other).values;
+			char[] result = new char[Math.min(values.length, otherValues.length)];
+			int size = 0;
+			int i = 0;
+			int j = 0;
+			while (i < values.length && j < otherValues.length) {
+				if (values[i] < otherValues[j]) {
+					i++;
+				} else if (values[i] > otherValues[j]) {
+					j++;
+				} else {
+					result[size++] = values[i];
+					i++;
+					j++;
+				}
+			}
+			return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+		}
+
+		@Override
+		Container or(Container other) {
+			if (!(other instanceof ArrayContainer) || values.length + ((ArrayContainer) other).values.length > ARRAY_CONTAINER_LIMIT) {
+				return super.or(other);
+			}
+			char[] otherValues = ((ArrayContainer) other).values;
+			char[] result = new char[values.length + otherValues.length];
+			int size = 0;
+			int i = 0;
+			int j = 0;
+			while (i < values.length || j < otherValues.length) {
+				if (j == otherValues.length || (i < values.length && values[i] < otherValues[j])) {
+					result[size++] = values[i++];
+				} else if (i == values.length || values[i] > otherValues[j]) {
+					result[size++] = otherValues[j++];
+				} else {
+					result[size++] = values[i];
+					i++;
+					j++;
+				}
+			}
+			return new ArrayContainer(Arrays.copyOf(result, size));
+		}
+
+		@Override
+		Container andNot(Container other) {
+			char[] result = new char[values.length];
+			int size = 0;
+			for (char value : values) {
+				if (!other.contains(value)) {
+					result[size++] = value;
+				}
+			}
+			return size == 0 ? null : new ArrayContainer(Arrays.copyOf(result, size));
+		}
+	}
+
+	private static class BitmapContainer extends Container {
+
+		private final long[] words;
+		private final int cardinality;
+
+		BitmapContainer(long[] words, int cardinality) {
+			this.words = words;
+			this.cardinality = cardinality;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		boolean contains(int low) {
+			return (words[low >>> 6] & (1L << low)) != 0;
+		}
+
+		@Override
+		int next(int low) {
+			int index = low >>> 6;
+			if (index >= CONTAINER_WORDS) {
+				return -1;
+			}
+			long word = words[index] & (-1L << low);
+			while (true) {
+				if (word != 0) {
+					return index * 64 + Long.numberOfTrailingZeros(word);
+				}
+				if (++index == CONTAINER_WORDS) {
+					return -1;
+				}
+				word = words[index];
+			}
+		}
+
+		@Override
+		int select(int rank) {
+			for (int i = 0; i < CONTAINER_WORDS; i++) {
+				int count = Long.bitCount(words[i]);
+				if (rank < count) {
+					return i * 64 + selectInWord(words[i], rank);
+				}
+				rank -= count;
+			}
+			return -1;
+		}
+
+		@Override
+		void writeTo(long[] target, int offset) {
+			System.arraycopy(words, 0, target, offset, CONTAINER_WORDS);
+		}
+
+		@Override
+		long getSizeInBytes() {
+			return CONTAINER_WORDS * 8L + 16;
+		}
+
+		@Override
+		long[] toWords() {
+			return words.clone();
+		}
+
+		@Override
+		Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			return super.and(other);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.recordset;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+public interface RecordSet {
+
+	static RecordSet of(BitSet bitSet) {
+		long bitmapBytes = bitSet.size() / 8;
+		long arrayBytes = bitSet.cardinality() * 2L;
+		if (arrayBytes * 2 < bitmapBytes) {
+			return CompressedRecordSet.create(bitSet);
+		} else {
+			return new BitSetRecordSet(bitSet);
+		}
+	}
+
+	static RecordSet compressed(BitSet bitSet) {
+		return CompressedRecordSet.create(bitSet);
+	}
+
+	static RecordSet uncompressed(BitSet bitSet) {
+		return new BitSetRecordSet(bitSet);
+	}
+
+	static RecordSet empty() {
+		return new BitSetRecordSet(new BitSet());
+	}
+
+	int cardinality();
+
+	default boolean isEmpty() {
+		return cardinality() == 0;
+	}
+
+	boolean contains(int id);
+
+	int nextRecord(int fromId);
+
+	int select(int rank);
+
+	PrimitiveIterator.OfInt iterator();
+
+	default void forEach(IntConsumer consumer) {
+		PrimitiveIterator.OfInt iterator = iterator();
+		while (iterator.hasNext()) {
+			consumer.accept(iterator.nextInt());
+		}
+	}
+
+	RecordSet and(RecordSet other);
+
+	RecordSet or(RecordSet other);
+
+	RecordSet andNot(RecordSet other);
+
+	BitSet toBitSet();
+
+	long getSizeInBytes();
+
+}
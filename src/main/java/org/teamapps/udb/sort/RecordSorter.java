@@ -0,0 +1,321 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.sort;
+
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.bool.BooleanIndex;
+import org.teamapps.universaldb.index.numeric.*;
+import org.teamapps.universaldb.index.text.TextIndex;
+
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+
+public class RecordSorter {
+
+	public interface SortKeyExtractor {
+		long getSortKey(int id);
+	}
+
+	public interface RecordComparator {
+		int compare(int id1, int id2);
+	}
+
+	public static SortKeyExtractor createSortKeyExtractor(ColumnIndex index) {
+		switch (index.getType()) {
+			case BOOLEAN:
+				BooleanIndex booleanIndex = (BooleanIndex) index;
+				return id -> booleanIndex.getValue(id) ? 1 : 0;
+			case SHORT:
+				ShortIndex shortIndex = (ShortIndex) index;
+				return shortIndex::getValue;
+			case INT:
+				IntegerIndex integerIndex = (IntegerIndex) index;
+				return integerIndex::getValue;
+			case LONG:
+				LongIndex longIndex = (LongIndex) index;
+				return longIndex::getValue;
+			case FLOAT:
+				FloatIndex floatIndex = (FloatIndex) index;
+				return id -> toSortableLong(floatIndex.getValue(id));
+			case DOUBLE:
+				DoubleIndex doubleIndex = (DoubleIndex) index;
+				return id -> toSortableLong(doubleIndex.getValue(id));
+			default:
+				return null;
+		}
+	}
+
+	public static RecordComparator createRecordComparator(ColumnIndex index, Locale locale) {
+		SortKeyExtractor keyExtractor = createSortKeyExtractor(index);
+		if (keyExtractor != null) {
+			return (id1, id2) -> Long.compare(keyExtractor.getSortKey(id1), keyExtractor.getSortKey(id2));
+		}
+		switch (index.getType()) {
+			case TEXT:
+				TextIndex textIndex = (TextIndex) index;
+				Comparator<String> comparator = Comparator.nullsFirst(Collator.getInstance(locale)::compare);
+				return (id1, id2) -> comparator.compare(textIndex.getValue(id1), textIndex.getValue(id2));
+			default:
+				return null;
+		}
+	}
+
+	public static boolean isSortable(ColumnIndex index) {
+		return createRecordComparator(index, Locale.ROOT) != null;
+	}
+
+	public static int[] sort(RecordSet records, ColumnIndex index, boolean ascending, Locale locale) {
+		int[] ids = toArray(records);
+		SortKeyExtractor keyExtractor = createSortKeyExtractor(index);
+		if (keyExtractor != null) {
+			long[] keys = new long[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				keys[i] = keyExtractor.getSortKey(ids[i]);
+			}
+			sortByKeys(keys, ids);
+		} else if (index.getType() == IndexType.TEXT) {
+			TextIndex textIndex = (TextIndex) index;
+			String[] values = new String[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				values[i] = textIndex.getValue(ids[i]);
+			}
+			Comparator<String> comparator = Comparator.nullsFirst(Collator.getInstance(locale)::compare);
+			sortByValues(values, ids, comparator);
+		} else {
+			return null;
+		}
+		if (!ascending) {
+			reverse(ids);
+		}
+		return ids;
+	}
+
+	public static int[] sortTopK(RecordSet records, ColumnIndex index, boolean ascending, Locale locale, int k) {
+		if (k >= records.cardinality()) {
+			return sort(records, index, ascending, locale);
+		}
+		SortKeyExtractor keyExtractor = createSortKeyExtractor(index);
+		if (keyExtractor != null) {
+			return selectTopK(records, keyExtractor, ascending, k);
+		}
+		RecordComparator comparator = createRecordComparator(index, locale);
+		if (comparator == null) {
+			return null;
+		}
+		return selectTopK(records, (id1, id2) -> {
+			int result = comparator.compare(id1, id2);
+			if (result == 0) {
+				result = Integer.compare(id1, id2);
+			}
+			return ascending ? result : -result;
+		}, k);
+	}
+
+	static int[] selectTopK(RecordSet records, SortKeyExtractor keyExtractor, boolean ascending, int k) {
+		long[] keys = new long[k];
+		int[] ids = new int[k];
+		int size = 0;
+		for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+			int id = iterator.nextInt();
+			long key = keyExtractor.getSortKey(id);
+			if (!ascending) {
+				key = ~key;
+				id = ~id;
+			}
+			if (size < k) {
+				siftUp(keys, ids, size++, key, id);
+			} else if (isGreater(keys[0], ids[0], key, id)) {
+				siftDown(keys, ids, size, key, id);
+			}
+		}
+		int[] result = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			result[i] = ascending ? ids[0] : ~ids[0];
+			siftDown(keys, ids, i, keys[i], ids[i]);
+		}
+		return result;
+	}
+
+	private static boolean isGreater(long key1, int id1, long key2, int id2) {
+		return key1 > key2 || (key1 == key2 && id1 > id2);
+	}
+
+	private static void siftUp(long[] keys, int[] ids, int pos, long key, int id) {
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (!isGreater(key, id, keys[parent], ids[parent])) {
+				break;
+			}
+			keys[pos] = keys[parent];
+			ids[pos] = ids[parent];
+			pos = parent;
+		}
+		keys[pos] = key;
+		ids[pos] = id;
+	}
+
+	private static void siftDown(long[] keys, int[] ids, int size, long key, int id) {
+		int pos = 0;
+		int child;
+		while ((child = 2 * pos + 1) < size) {
+			if (child + 1 < size && isGreater(keys[child + 1], ids[child + 1], keys[child], ids[child])) {
+				child++;
+			}
+			if (!isGreater(keys[child], ids[child], key, id)) {
+				break;
+			}
+			keys[pos] = keys[child];
+			ids[pos] = ids[child];
+			pos = child;
+		}
+		keys[pos] = key;
+		ids[pos] = id;
+	}
+
+	private static int[] selectTopK(RecordSet records, RecordComparator comparator, int k) {
+		int[] heap = new int[k];
+		int size = 0;
+		for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+			int id = iterator.nextInt();
+			if (size < k) {
+				siftUp(heap, size++, id, comparator);
+			} else if (comparator.compare(heap[0], id) > 0) {
+				siftDown(heap, size, id, comparator);
+			}
+		}
+		int[] result = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			result[i] = heap[0];
+			siftDown(heap, i, heap[i], comparator);
+		}
+		return result;
+	}
+
+	private static void siftUp(int[] heap, int pos, int id, RecordComparator comparator) {
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (comparator.compare(id, heap[parent]) <= 0) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			pos = parent;
+		}
+		heap[pos] = id;
+	}
+
+	private static void siftDown(int[] heap, int size, int id, RecordComparator comparator) {
+		int pos = 0;
+		int child;
+		while ((child = 2 * pos + 1) < size) {
+			if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) > 0) {
+				child++;
+			}
+			if (comparator.compare(heap[child], id) <= 0) {
+				break;
+			}
+			heap[pos] = heap[child];
+			pos = child;
+		}
+		heap[pos] = id;
+	}
+
+	public static int[] toArray(RecordSet records) {
+		int[] ids = new int[records.cardinality()];
+		int pos = 0;
+		for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+			ids[pos++] = iterator.nextInt();
+		}
+		return ids;
+	}
+
+	public static long toSortableLong(double value) {
+		long bits = Double.doubleToLongBits(value);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	public static void reverse(int[] ids) {
+		for (int i = 0, j = ids.length - 1; i < j; i++, j--) {
+			int id = ids[i];
+			ids[i] = ids[j];
+			ids[j] = id;
+		}
+	}
+
+	public static void sortByKeys(long[] keys, int[] ids) {
+		if (keys.length < 2) {
+			return;
+		}
+		mergeSort(keys.clone(), ids.clone(), keys, ids, 0, keys.length);
+	}
+
+	private static void mergeSort(long[] srcKeys, int[] srcIds, long[] destKeys, int[] destIds, int from, int to) {
+		int length = to - from;
+		if (length < 16) {
+			for (int i = from + 1; i < to; i++) {
+				long key = destKeys[i];
+				int id = destIds[i];
+				int j = i - 1;
+				while (j >= from && destKeys[j] > key) {
+					destKeys[j + 1] = destKeys[j];
+					destIds[j + 1] = destIds[j];
+					j--;
+				}
+				destKeys[j + 1] = key;
+				destIds[j + 1] = id;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(destKeys, destIds, srcKeys, srcIds, from, mid);
+		mergeSort(destKeys, destIds, srcKeys, srcIds, mid, to);
+		if (srcKeys[mid - 1] <= srcKeys[mid]) {
+			System.arraycopy(srcKeys, from, destKeys, from, length);
+			System.arraycopy(srcIds, from, destIds, from, length);
+			return;
+		}
+		for (int i = from, p = from, q = mid; i < to; i++) {
+			if (q >= to || (p < mid && srcKeys[p] <= srcKeys[q])) {
+				destKeys[i] = srcKeys[p];
+				destIds[i] = srcIds[p++];
+			} else {
+				destKeys[i] = srcKeys[q];
+				destIds[i] = srcIds[q++];
+			}
+		}
+	}
+
+	private static <T> void sortByValues(T[] values, int[] ids, Comparator<T> comparator) {
+		Integer[] order = new Integer[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> comparator.compare(values[a], values[b]));
+		int[] sortedIds = new int[ids.length];
+		for (int i = 0; i < order.length; i++) {
+			sortedIds[i] = ids[order[i]];
+		}
+		System.arraycopy(sortedIds, 0, ids, 0, ids.length);
+	}
+}
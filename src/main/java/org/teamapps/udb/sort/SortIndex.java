@@ -0,0 +1,205 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.sort;
+
+import org.teamapps.udb.cache.TableChangeTracker;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class SortIndex implements TableChangeTracker.TableChangeListener {
+
+	private static final Map<ColumnIndex, Map<Locale, SortIndex>> SORT_INDICES = new ConcurrentHashMap<>();
+	private static final long MAX_AGE = 10 * 60_000L;
+	private static final int DIRECT_SORT_RATIO = 16;
+
+	private final ColumnIndex columnIndex;
+	private final Locale locale;
+	private final RecordSorter.RecordComparator comparator;
+	private final Function<RecordSet, int[]> recordSorter;
+	private final BitSet changedRecords = new BitSet();
+	private long version;
+	private State state = new State(new int[0], new BitSet());
+	private long stateTime = System.currentTimeMillis();
+
+	public static SortIndex getSortIndex(TableIndex tableIndex, ColumnIndex columnIndex, Locale locale) {
+		if (!RecordSorter.isSortable(columnIndex) || !TableChangeTracker.hasWriteSignal(tableIndex)) {
+			return null;
+		}
+		Locale indexLocale = columnIndex.getType() == IndexType.TEXT ? locale : Locale.ROOT;
+		return SORT_INDICES.computeIfAbsent(columnIndex, c -> new ConcurrentHashMap<>()).computeIfAbsent(indexLocale, l -> {
+			SortIndex sortIndex = new SortIndex(columnIndex, l);
+			TableChangeTracker.addChangeListener(tableIndex, sortIndex);
+			return sortIndex;
+		});
+	}
+
+	private SortIndex(ColumnIndex columnIndex, Locale locale) {
+		this(columnIndex, locale, RecordSorter.createRecordComparator(columnIndex, locale), records -> RecordSorter.sort(records, columnIndex, true, locale));
+	}
+
+	SortIndex(ColumnIndex columnIndex, Locale locale, RecordSorter.RecordComparator recordComparator, Function<RecordSet, int[]> recordSorter) {
+		this.columnIndex = columnIndex;
+		this.locale = locale;
+		this.recordSorter = recordSorter;
+		this.comparator = (id1, id2) -> {
+			int result = recordComparator.compare(id1, id2);
+			return result != 0 ? result : Integer.compare(id1, id2);
+		};
+	}
+
+	public int[] sort(RecordSet records, boolean ascending) {
+		long sortVersion;
+		State currentState;
+		synchronized (this) {
+			sortVersion = version;
+			currentState = getState();
+		}
+		if ((long) records.cardinality() * DIRECT_SORT_RATIO < currentState.permutation.length) {
+			int[] sortedIds = recordSorter.apply(records);
+			if (!ascending) {
+				RecordSorter.reverse(sortedIds);
+			}
+			return sortedIds;
+		}
+		BitSet recordBits = records.toBitSet();
+		BitSet indexedRecords = (BitSet) recordBits.clone();
+		indexedRecords.and(currentState.indexedRecords);
+		int indexedCount = indexedRecords.cardinality();
+		int[] sortedIds = new int[recordBits.cardinality()];
+		int count = 0;
+		for (int i = 0; i < currentState.permutation.length && count < indexedCount; i++) {
+			int id = currentState.permutation[i];
+			if (indexedRecords.get(id)) {
+				sortedIds[count++] = id;
+			}
+		}
+		if (count < sortedIds.length) {
+			recordBits.andNot(currentState.indexedRecords);
+			int[] addedIds = recordSorter.apply(RecordSet.of(recordBits));
+			merge(sortedIds, count, addedIds, addedIds.length);
+			addRecords(addedIds, sortVersion);
+		}
+		if (!ascending) {
+			RecordSorter.reverse(sortedIds);
+		}
+		return sortedIds;
+	}
+
+	public ColumnIndex getColumnIndex() {
+		return columnIndex;
+	}
+
+	public Locale getLocale() {
+		return locale;
+	}
+
+	public synchronized int getIndexedRecordCount() {
+		return getState().indexedRecords.cardinality();
+	}
+
+	@Override
+	public synchronized void handleRecordChanged(int recordId) {
+		version++;
+		changedRecords.set(recordId);
+	}
+
+	@Override
+	public synchronized void handleTableChanged() {
+		version++;
+		changedRecords.clear();
+		state = new State(new int[0], new BitSet());
+		stateTime = System.currentTimeMillis();
+	}
+
+	@Override
+	public void handleTrackingStopped() {
+		handleTableChanged();
+		Map<Locale, SortIndex> sortIndices = SORT_INDICES.get(columnIndex);
+		if (sortIndices != null) {
+			sortIndices.remove(locale, this);
+		}
+	}
+
+	private State getState() {
+		if (System.currentTimeMillis() - stateTime > MAX_AGE) {
+			handleTableChanged();
+		}
+		if (!changedRecords.isEmpty()) {
+			BitSet indexedRecords = (BitSet) state.indexedRecords.clone();
+			indexedRecords.andNot(changedRecords);
+			changedRecords.clear();
+			state = new State(state.permutation, indexedRecords);
+		}
+		return state;
+	}
+
+	private synchronized void addRecords(int[] addedIds, long sortVersion) {
+		if (sortVersion != version) {
+			return;
+		}
+		State currentState = getState();
+		BitSet indexedRecords = (BitSet) currentState.indexedRecords.clone();
+		int indexedCount = indexedRecords.cardinality();
+		int[] permutation = new int[indexedCount + addedIds.length];
+		int count = 0;
+		for (int i = 0; i < currentState.permutation.length && count < indexedCount; i++) {
+			int id = currentState.permutation[i];
+			if (indexedRecords.get(id)) {
+				permutation[count++] = id;
+			}
+		}
+		merge(permutation, count, addedIds, addedIds.length);
+		for (int id : addedIds) {
+			indexedRecords.set(id);
+		}
+		state = new State(permutation, indexedRecords);
+	}
+
+	private void merge(int[] ids, int count, int[] addedIds, int addedCount) {
+		int i = count - 1;
+		int j = addedCount - 1;
+		int pos = count + addedCount - 1;
+		while (j >= 0) {
+			if (i >= 0 && comparator.compare(ids[i], addedIds[j]) > 0) {
+				ids[pos--] = ids[i--];
+			} else {
+				ids[pos--] = addedIds[j--];
+			}
+		}
+	}
+
+	private static class State {
+		private final int[] permutation;
+		private final BitSet indexedRecords;
+
+		private State(int[] permutation, BitSet indexedRecords) {
+			this.permutation = permutation;
+			this.indexedRecords = indexedRecords;
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import java.util.Arrays;
+
+public class BucketStats {
+
+	private final boolean measured;
+	private long firstBucket;
+	private int[] counts = new int[0];
+	private double[] sums;
+	private double[] mins;
+	private double[] maxs;
+
+	public BucketStats(boolean measured) {
+		this.measured = measured;
+	}
+
+	public void add(long bucket) {
+		int index = getIndex(bucket);
+		counts[index]++;
+	}
+
+	public void add(long bucket, double value) {
+		int index = getIndex(bucket);
+		counts[index]++;
+		sums[index] += value;
+		mins[index] = Math.min(mins[index], value);
+		maxs[index] = Math.max(maxs[index], value);
+	}
+
+	public void add(long bucket, BucketStats other, long otherBucket) {
+		int otherIndex = (int) (otherBucket - other.firstBucket);
+		if (otherIndex < 0 || otherIndex >= other.counts.length || other.counts[otherIndex] == 0) {
+			return;
+		}
+		int index = getIndex(bucket);
+		counts[index] += other.counts[otherIndex];
+		if (measured) {
+			sums[index] += other.sums[otherIndex];
+			mins[index] = Math.min(mins[index], other.mins[otherIndex]);
+			maxs[index] = Math.max(maxs[index], other.maxs[otherIndex]);
+		}
+	}
+
+	public boolean isMeasured() {
+		return measured;
+	}
+
+	public boolean isEmpty() {
+		return counts.length == 0;
+	}
+
+	public long getFirstBucket() {
+		return firstBucket;
+	}
+
+	public long getLastBucket() {
+		return firstBucket + counts.length - 1;
+	}
+
+	public int getCount(long bucket) {
+		long index = bucket - firstBucket;
+		return index >= 0 && index < counts.length ? counts[(int) index] : 0;
+	}
+
+	public double getValue(long bucket, MeasureAggregation aggregation) {
+		long index = bucket - firstBucket;
+		if (index < 0 || index >= counts.length || counts[(int) index] == 0) {
+			return 0;
+		}
+		int i = (int) index;
+		if (!measured) {
+			return counts[i];
+		}
+		switch (aggregation) {
+			case SUM:
+				return sums[i];
+			case AVERAGE:
+				return sums[i] / counts[i];
+			case MIN:
+				return mins[i];
+			case MAX:
+				return maxs[i];
+			default:
+				return counts[i];
+		}
+	}
+
+	private int getIndex(long bucket) {
+		if (counts.length == 0) {
+			firstBucket = bucket;
+			resize(0, 16);
+		} else if (bucket < firstBucket) {
+			int shift = (int) Math.max(firstBucket - bucket, counts.length);
+			firstBucket -= shift;
+			resize(shift, counts.length + shift);
+		} else if (bucket - firstBucket >= counts.length) {
+			resize(0, (int) Math.max(bucket - firstBucket + 1, counts.length * 2L));
+		}
+		return (int) (bucket - firstBucket);
+	}
+
+	private void resize(int offset, int length) {
+		int oldLength = counts.length;
+		int[] newCounts = new int[length];
+		System.arraycopy(counts, 0, newCounts, offset, oldLength);
+		counts = newCounts;
+		if (measured) {
+			sums = copy(sums, offset, length, 0);
+			mins = copy(mins, offset, length, Double.POSITIVE_INFINITY);
+			maxs = copy(maxs, offset, length, Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	private static double[] copy(double[] values, int offset, int length, double emptyValue) {
+		double[] newValues = new double[length];
+		Arrays.fill(newValues, emptyValue);
+		if (values != null) {
+			System.arraycopy(values, 0, newValues, offset, values.length);
+		}
+		return newValues;
+	}
+}
@@ -0,0 +1,445 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.ux.component.timegraph.AbstractTimeGraphModel;
+import org.teamapps.ux.component.timegraph.Interval;
+import org.teamapps.ux.component.timegraph.LineChartDataPoint;
+import org.teamapps.ux.component.timegraph.LineChartDataPoints;
+import org.teamapps.ux.component.timegraph.ListLineChartDataPoints;
+import org.teamapps.ux.component.timegraph.TimeGraphZoomLevel;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+public class BucketedTimeGraphModel extends AbstractTimeGraphModel {
+
+	private static final ForkJoinPool TIME_GRAPH_POOL = new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 4), pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("udb-time-graph-" + thread.getPoolIndex());
+		thread.setDaemon(true);
+		return thread;
+	}, null, false);
+
+	private static final int MAX_DATA_POINTS = 100_000;
+	private static final int MINUTES_PER_HOUR = 60;
+	private static final int MINUTES_PER_DAY = 1440;
+	private static final long MILLIS_PER_MINUTE = 60_000L;
+
+	private final ZoneId zoneId;
+	private final ZoneOffsetCache offsetCache;
+	private final Map<String, SeriesCounts> seriesById = new HashMap<>();
+	private IntToDoubleFunction measureReader;
+	private MeasureAggregation measureAggregation = MeasureAggregation.COUNT;
+	private int parallelThreshold = 500_000;
+	private int maxDenseBuckets = 1 << 18;
+
+	public BucketedTimeGraphModel(ZoneId zoneId) {
+		this.zoneId = zoneId;
+		this.offsetCache = new ZoneOffsetCache(zoneId);
+	}
+
+	public void setMeasure(IntToDoubleFunction measureReader, MeasureAggregation measureAggregation) {
+		synchronized (this) {
+			this.measureAggregation = measureReader != null && measureAggregation != null ? measureAggregation : MeasureAggregation.COUNT;
+			this.measureReader = this.measureAggregation != MeasureAggregation.COUNT ? measureReader : null;
+		}
+		onDataChanged.fire(null);
+	}
+
+	public MeasureAggregation getMeasureAggregation() {
+		return measureAggregation;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	public BucketedTimeGraphModel setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = Math.max(1, parallelThreshold);
+		return this;
+	}
+
+	public int getMaxDenseBuckets() {
+		return maxDenseBuckets;
+	}
+
+	public BucketedTimeGraphModel setMaxDenseBuckets(int maxDenseBuckets) {
+		this.maxDenseBuckets = Math.max(0, maxDenseBuckets);
+		return this;
+	}
+
+	public void setSeries(String seriesId, RecordSet records, IntToLongFunction timestampReader) {
+		setNestedSeries(List.of(seriesId), List.of(records), timestampReader);
+	}
+
+	public void setSeries(String seriesId, RecordSet records, TimeCube timeCube) {
+		setNestedSeries(List.of(seriesId), List.of(records), timeCube);
+	}
+
+	public void setNestedSeries(List<String> seriesIds, List<RecordSet> nestedRecords, IntToLongFunction timestampReader) {
+		putNestedSeries(seriesIds, nestedRecords, () -> {
+			ZoneOffsetCache zoneOffsetCache = new ZoneOffsetCache(zoneId);
+			return id -> TimeCube.toMinuteOrdinal(timestampReader.applyAsLong(id), zoneOffsetCache);
+		});
+	}
+
+	public void setNestedSeries(List<String> seriesIds, List<RecordSet> nestedRecords, TimeCube timeCube) {
+		if (nestedRecords.isEmpty()) {
+			return;
+		}
+		IntUnaryOperator minuteReader = timeCube.getMinuteReader(nestedRecords.get(0));
+		putNestedSeries(seriesIds, nestedRecords, () -> minuteReader);
+	}
+
+	private void putNestedSeries(List<String> seriesIds, List<RecordSet> nestedRecords, Supplier<IntUnaryOperator> minuteReaders) {
+		if (seriesIds.isEmpty()) {
+			return;
+		}
+		IntToDoubleFunction reader;
+		synchronized (this) {
+			reader = measureReader;
+		}
+		SeriesCounts[] counts = countNested(nestedRecords, minuteReaders, reader);
+		synchronized (this) {
+			for (int i = 0; i < seriesIds.size(); i++) {
+				seriesById.put(seriesIds.get(i), counts[i]);
+			}
+		}
+		onDataChanged.fire(null);
+	}
+
+	public synchronized void removeSeries(String seriesId) {
+		if (seriesById.remove(seriesId) != null) {
+			onDataChanged.fire(null);
+		}
+	}
+
+	private SeriesCounts[] countNested(List<RecordSet> nestedRecords, Supplier<IntUnaryOperator> minuteReaders, IntToDoubleFunction measureReader) {
+		List<RecordSet> distinctRecords = new ArrayList<>();
+		int[] distinctIndex = new int[nestedRecords.size()];
+		for (int i = 0; i < nestedRecords.size(); i++) {
+			if (distinctRecords.isEmpty() || distinctRecords.get(distinctRecords.size() - 1) != nestedRecords.get(i)) {
+				distinctRecords.add(nestedRecords.get(i));
+			}
+			distinctIndex[i] = distinctRecords.size() - 1;
+		}
+		RecordSet outerRecords = distinctRecords.get(0);
+		int cardinality = outerRecords.cardinality();
+		int chunks = Math.min(TIME_GRAPH_POOL.getParallelism(), cardinality / parallelThreshold);
+		NestedCounts nestedCounts;
+		int denseBuckets = maxDenseBuckets;
+		if (chunks <= 1) {
+			nestedCounts = countChunk(distinctRecords, minuteReaders.get(), measureReader, denseBuckets, 0, Integer.MAX_VALUE);
+		} else {
+			List<ForkJoinTask<NestedCounts>> tasks = new ArrayList<>();
+			for (int i = 0; i < chunks; i++) {
+				int fromId = outerRecords.select((int) ((long) cardinality * i / chunks));
+				int toId = i + 1 < chunks ? outerRecords.select((int) ((long) cardinality * (i + 1) / chunks)) : Integer.MAX_VALUE;
+				tasks.add(TIME_GRAPH_POOL.submit(() -> countChunk(distinctRecords, minuteReaders.get(), measureReader, denseBuckets, fromId, toId)));
+			}
+			nestedCounts = tasks.get(0).join();
+			for (int i = 1; i < tasks.size(); i++) {
+				nestedCounts.merge(tasks.get(i).join());
+			}
+		}
+		SeriesCounts[] distinctCounts = new SeriesCounts[distinctRecords.size()];
+		for (int i = 0; i < distinctCounts.length; i++) {
+			distinctCounts[i] = new SeriesCounts(distinctRecords.get(i), minuteReaders, measureReader, nestedCounts, i);
+		}
+		SeriesCounts[] counts = new SeriesCounts[nestedRecords.size()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = distinctCounts[distinctIndex[i]];
+		}
+		return counts;
+	}
+
+	private static NestedCounts countChunk(List<RecordSet> nestedRecords, IntUnaryOperator minuteReader, IntToDoubleFunction measureReader, int maxDenseBuckets, int fromId, int toId) {
+		int seriesCount = nestedRecords.size();
+		NestedCounts counts = new NestedCounts(seriesCount, measureReader != null, maxDenseBuckets);
+		RecordSet outerRecords = nestedRecords.get(0);
+		for (int id = outerRecords.nextRecord(fromId); id >= 0 && id < toId; id = outerRecords.nextRecord(id + 1)) {
+			int minute = minuteReader.applyAsInt(id);
+			if (minute == TimeCube.EMPTY) {
+				continue;
+			}
+			double value = measureReader != null ? measureReader.applyAsDouble(id) : 0;
+			for (int series = 0; series < seriesCount; series++) {
+				if (series > 0 && !nestedRecords.get(series).contains(id)) {
+					break;
+				}
+				counts.add(series, minute, value);
+			}
+		}
+		return counts;
+	}
+
+	@Override
+	public List<TimeGraphZoomLevel> getZoomLevels() {
+		List<TimeGraphZoomLevel> zoomLevels = new ArrayList<>();
+		for (TimeResolution resolution : TimeResolution.values()) {
+			zoomLevels.add(new TimeGraphZoomLevel(resolution.getApproximateMillis()));
+		}
+		return zoomLevels;
+	}
+
+	@Override
+	public Map<String, LineChartDataPoints> getDataPoints(Collection<String> dataSeriesIds, TimeGraphZoomLevel zoomLevel, Interval neededIntervalX) {
+		TimeResolution resolution = TimeResolution.ofApproximateMillis(zoomLevel.getApproximateMillisecondsPerDataPoint());
+		Map<String, SeriesCounts> series = new HashMap<>();
+		MeasureAggregation aggregation;
+		IntToDoubleFunction reader;
+		long neededFirstBucket;
+		long neededLastBucket;
+		synchronized (this) {
+			for (String seriesId : dataSeriesIds) {
+				series.put(seriesId, seriesById.get(seriesId));
+			}
+			aggregation = measureAggregation;
+			reader = measureReader;
+			neededFirstBucket = resolution.getBucket(offsetCache.toLocalMillis(neededIntervalX.getMin()));
+			neededLastBucket = resolution.getBucket(offsetCache.toLocalMillis(neededIntervalX.getMax()));
+		}
+		series.replaceAll((seriesId, counts) -> counts != null && reader != null && counts.measureReader != reader ? recount(seriesId, counts, reader) : counts);
+		Map<String, LineChartDataPoints> dataPoints = new HashMap<>();
+		series.forEach((seriesId, counts) -> {
+			List<LineChartDataPoint> points = new ArrayList<>();
+			if (counts != null && counts.size > 0) {
+				long firstBucket = Math.max(neededFirstBucket, resolution.getBucket(counts.minLocalMillis) - 1);
+				long lastBucket = Math.min(neededLastBucket, resolution.getBucket(counts.maxLocalMillis) + 1);
+				lastBucket = Math.min(lastBucket, firstBucket + MAX_DATA_POINTS);
+				BucketStats stats = counts.getStats(resolution, firstBucket, lastBucket);
+				for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+					points.add(new LineChartDataPoint(offsetCache.toEpochMillis(resolution.getBucketStart(bucket)), stats.getValue(bucket, aggregation)));
+				}
+			}
+			dataPoints.put(seriesId, new ListLineChartDataPoints(points));
+		});
+		return dataPoints;
+	}
+
+	private SeriesCounts recount(String seriesId, SeriesCounts counts, IntToDoubleFunction reader) {
+		SeriesCounts updatedCounts = countNested(List.of(counts.records), counts.minuteReaders, reader)[0];
+		synchronized (this) {
+			seriesById.replace(seriesId, counts, updatedCounts);
+		}
+		return updatedCounts;
+	}
+
+	@Override
+	public synchronized Interval getDomainX(Collection<String> dataSeriesIds) {
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (String seriesId : dataSeriesIds) {
+			SeriesCounts series = seriesById.get(seriesId);
+			if (series != null && series.size > 0) {
+				min = Math.min(min, series.minMillis);
+				max = Math.max(max, series.maxMillis);
+			}
+		}
+		if (min > max) {
+			long now = System.currentTimeMillis();
+			return new Interval(now - TimeResolution.YEAR.getApproximateMillis(), now);
+		}
+		return new Interval(min, max);
+	}
+
+	private static class NestedCounts {
+		private static final int MINUTE_LEVEL = 0;
+		private static final int HOUR_LEVEL = 1;
+		private static final int DAY_LEVEL = 2;
+		private static final int[] LEVEL_MINUTES = {1, MINUTES_PER_HOUR, MINUTES_PER_DAY};
+
+		private final int maxDenseBuckets;
+		private final BucketStats[] stats;
+		private final int[] levels;
+		private final int[] minMinutes;
+		private final int[] maxMinutes;
+		private final int[] sizes;
+
+		private NestedCounts(int seriesCount, boolean measured, int maxDenseBuckets) {
+			this.maxDenseBuckets = maxDenseBuckets;
+			stats = new BucketStats[seriesCount];
+			levels = new int[seriesCount];
+			minMinutes = new int[seriesCount];
+			maxMinutes = new int[seriesCount];
+			sizes = new int[seriesCount];
+			for (int i = 0; i < seriesCount; i++) {
+				stats[i] = new BucketStats(measured);
+				minMinutes[i] = Integer.MAX_VALUE;
+				maxMinutes[i] = Integer.MIN_VALUE;
+			}
+		}
+
+		private void add(int series, int minute, double value) {
+			minMinutes[series] = Math.min(minMinutes[series], minute);
+			maxMinutes[series] = Math.max(maxMinutes[series], minute);
+			sizes[series]++;
+			rollUp(series, levels[series]);
+			long bucket = Math.floorDiv(minute, LEVEL_MINUTES[levels[series]]);
+			if (stats[series].isMeasured()) {
+				stats[series].add(bucket, value);
+			} else {
+				stats[series].add(bucket);
+			}
+		}
+
+		private void rollUp(int series, int minLevel) {
+			int level = minLevel;
+			while (level < DAY_LEVEL && getSpan(series, level) >= maxDenseBuckets) {
+				level++;
+			}
+			if (level != levels[series]) {
+				stats[series] = rollUp(stats[series], LEVEL_MINUTES[level] / LEVEL_MINUTES[levels[series]]);
+				levels[series] = level;
+			}
+		}
+
+		private long getSpan(int series, int level) {
+			return (long) Math.floorDiv(maxMinutes[series], LEVEL_MINUTES[level]) - Math.floorDiv(minMinutes[series], LEVEL_MINUTES[level]);
+		}
+
+		private void merge(NestedCounts other) {
+			for (int i = 0; i < sizes.length; i++) {
+				minMinutes[i] = Math.min(minMinutes[i], other.minMinutes[i]);
+				maxMinutes[i] = Math.max(maxMinutes[i], other.maxMinutes[i]);
+				sizes[i] += other.sizes[i];
+				rollUp(i, Math.max(levels[i], other.levels[i]));
+				BucketStats otherStats = other.getStats(i, levels[i]);
+				if (!otherStats.isEmpty()) {
+					for (long bucket = otherStats.getFirstBucket(); bucket <= otherStats.getLastBucket(); bucket++) {
+						stats[i].add(bucket, otherStats, bucket);
+					}
+				}
+			}
+		}
+
+		private BucketStats getStats(int series, int level) {
+			if (level < levels[series]) {
+				return null;
+			}
+			return level == levels[series] ? stats[series] : rollUp(stats[series], LEVEL_MINUTES[level] / LEVEL_MINUTES[levels[series]]);
+		}
+
+		private static BucketStats rollUp(BucketStats stats, int factor) {
+			BucketStats rolledUp = new BucketStats(stats.isMeasured());
+			if (!stats.isEmpty()) {
+				for (long bucket = stats.getFirstBucket(); bucket <= stats.getLastBucket(); bucket++) {
+					rolledUp.add(Math.floorDiv(bucket, factor), stats, bucket);
+				}
+			}
+			return rolledUp;
+		}
+	}
+
+	private class SeriesCounts {
+		private final RecordSet records;
+		private final Supplier<IntUnaryOperator> minuteReaders;
+		private final IntToDoubleFunction measureReader;
+		private final Map<TimeResolution, BucketStats> calendarStats = new EnumMap<>(TimeResolution.class);
+		private final BucketStats minuteStats;
+		private final BucketStats hourStats;
+		private long minMillis;
+		private long maxMillis;
+		private long minLocalMillis;
+		private long maxLocalMillis;
+		private final int size;
+		private TimeResolution subDayResolution;
+		private long subDayFirstBucket;
+		private long subDayLastBucket;
+		private BucketStats subDayStats;
+
+		private SeriesCounts(RecordSet records, Supplier<IntUnaryOperator> minuteReaders, IntToDoubleFunction measureReader, NestedCounts nestedCounts, int series) {
+			this.records = records;
+			this.minuteReaders = minuteReaders;
+			this.measureReader = measureReader;
+			this.size = nestedCounts.sizes[series];
+			this.minuteStats = nestedCounts.getStats(series, NestedCounts.MINUTE_LEVEL);
+			this.hourStats = nestedCounts.getStats(series, NestedCounts.HOUR_LEVEL);
+			if (size > 0) {
+				minLocalMillis = nestedCounts.minMinutes[series] * MILLIS_PER_MINUTE;
+				maxLocalMillis = nestedCounts.maxMinutes[series] * MILLIS_PER_MINUTE;
+				minMillis = offsetCache.toEpochMillis(minLocalMillis);
+				maxMillis = offsetCache.toEpochMillis(maxLocalMillis + MILLIS_PER_MINUTE - 1);
+				calendarStats.put(TimeResolution.DAY, nestedCounts.getStats(series, NestedCounts.DAY_LEVEL));
+			}
+		}
+
+		private synchronized BucketStats getStats(TimeResolution resolution, long firstBucket, long lastBucket) {
+			if (resolution.isCalendarBased()) {
+				return calendarStats.computeIfAbsent(resolution, this::rollUpDays);
+			}
+			BucketStats denseStats = resolution == TimeResolution.MINUTE ? minuteStats : hourStats;
+			if (denseStats != null) {
+				return denseStats;
+			}
+			if (resolution != subDayResolution || firstBucket < subDayFirstBucket || lastBucket > subDayLastBucket) {
+				long span = lastBucket - firstBucket + 1;
+				firstBucket -= span;
+				lastBucket += span;
+				BucketStats stats = new BucketStats(measureReader != null);
+				IntUnaryOperator minuteReader = minuteReaders.get();
+				for (PrimitiveIterator.OfInt iterator = records.iterator(); iterator.hasNext(); ) {
+					int id = iterator.nextInt();
+					int minute = minuteReader.applyAsInt(id);
+					if (minute != TimeCube.EMPTY) {
+						long bucket = resolution.getBucket(minute * MILLIS_PER_MINUTE);
+						if (bucket >= firstBucket && bucket <= lastBucket) {
+							if (measureReader != null) {
+								stats.add(bucket, measureReader.applyAsDouble(id));
+							} else {
+								stats.add(bucket);
+							}
+						}
+					}
+				}
+				subDayResolution = resolution;
+				subDayFirstBucket = firstBucket;
+				subDayLastBucket = lastBucket;
+				subDayStats = stats;
+			}
+			return subDayStats;
+		}
+
+		private BucketStats rollUpDays(TimeResolution resolution) {
+			CalendarUnit calendarUnit = resolution.getCalendarUnit();
+			BucketStats dayStats = calendarStats.get(TimeResolution.DAY);
+			BucketStats stats = new BucketStats(dayStats.isMeasured());
+			for (long day = dayStats.getFirstBucket(); day <= dayStats.getLastBucket(); day++) {
+				stats.add(calendarUnit.getBucket(day), dayStats, day);
+			}
+			return stats;
+		}
+	}
+}
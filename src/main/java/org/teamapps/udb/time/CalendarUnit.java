@@ -0,0 +1,91 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+public enum CalendarUnit {
+
+	YEAR,
+	QUARTER,
+	MONTH,
+	WEEK,
+	DAY;
+
+	public static final long MILLIS_PER_DAY = 86_400_000L;
+
+	public static long toEpochDay(long localMillis) {
+		return Math.floorDiv(localMillis, MILLIS_PER_DAY);
+	}
+
+	public long getBucket(long epochDay) {
+		switch (this) {
+			case YEAR:
+				return Math.floorDiv(getYearMonth(epochDay), 12);
+			case QUARTER:
+				long yearMonth = getYearMonth(epochDay);
+				return Math.floorDiv(yearMonth, 12) * 4 + Math.floorMod(yearMonth, 12) / 3;
+			case MONTH:
+				return getYearMonth(epochDay);
+			case WEEK:
+				return Math.floorDiv(epochDay + 3, 7);
+			default:
+				return epochDay;
+		}
+	}
+
+	public long getFirstDay(long bucket) {
+		switch (this) {
+			case YEAR:
+				return toEpochDay(bucket, 1, 1);
+			case QUARTER:
+				return toEpochDay(Math.floorDiv(bucket, 4), (int) Math.floorMod(bucket, 4) * 3 + 1, 1);
+			case MONTH:
+				return toEpochDay(Math.floorDiv(bucket, 12), (int) Math.floorMod(bucket, 12) + 1, 1);
+			case WEEK:
+				return bucket * 7 - 3;
+			default:
+				return bucket;
+		}
+	}
+
+	public long getEndDay(long bucket) {
+		return getFirstDay(bucket + 1);
+	}
+
+	private static long getYearMonth(long epochDay) {
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long monthIndex = (5 * dayOfYear + 2) / 153;
+		long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 12 + month - 1;
+	}
+
+	private static long toEpochDay(long year, int month, int day) {
+		year -= month <= 2 ? 1 : 0;
+		long era = Math.floorDiv(year, 400);
+		long yearOfEra = year - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+}
@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.teamapps.udb.cache.TableChangeTracker;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.TableIndex;
+import org.teamapps.universaldb.index.numeric.IntegerIndex;
+import org.teamapps.universaldb.index.numeric.LongIndex;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+public class TimeCube implements TableChangeTracker.TableChangeListener {
+
+	public static final int EMPTY = Integer.MIN_VALUE;
+
+	private static final Map<ColumnIndex, Map<ZoneId, TimeCube>> TIME_CUBES = new ConcurrentHashMap<>();
+	private static final long MAX_AGE = 10 * 60_000L;
+
+	private final ColumnIndex columnIndex;
+	private final ZoneId zoneId;
+	private final IntToLongFunction timestampReader;
+	private final ZoneOffsetCache offsetCache;
+	private final BitSet indexedRecords = new BitSet();
+	private int[] minuteOrdinals = new int[0];
+	private long indexTime = System.currentTimeMillis();
+
+	public static TimeCube getTimeCube(TableIndex tableIndex, ColumnIndex columnIndex, ZoneId zoneId) {
+		if (!TableChangeTracker.hasWriteSignal(tableIndex)) {
+			return null;
+		}
+		return TIME_CUBES.computeIfAbsent(columnIndex, c -> new ConcurrentHashMap<>()).computeIfAbsent(zoneId, z -> {
+			TimeCube timeCube = new TimeCube(columnIndex, z);
+			TableChangeTracker.addChangeListener(tableIndex, timeCube);
+			return timeCube;
+		});
+	}
+
+	public static IntToLongFunction createTimestampReader(ColumnIndex columnIndex) {
+		if (columnIndex.getType() == IndexType.INT) {
+			IntegerIndex integerIndex = (IntegerIndex) columnIndex;
+			return id -> integerIndex.getValue(id) * 1000L;
+		} else {
+			LongIndex longIndex = (LongIndex) columnIndex;
+			return longIndex::getValue;
+		}
+	}
+
+	public static int toMinuteOrdinal(long epochMillis, ZoneOffsetCache offsetCache) {
+		if (epochMillis == 0) {
+			return EMPTY;
+		}
+		long minute = Math.floorDiv(offsetCache.toLocalMillis(epochMillis), 60_000L);
+		return (int) Math.max(EMPTY + 1, Math.min(Integer.MAX_VALUE, minute));
+	}
+
+	private TimeCube(ColumnIndex columnIndex, ZoneId zoneId) {
+		this.columnIndex = columnIndex;
+		this.timestampReader = createTimestampReader(columnIndex);
+		this.zoneId = zoneId;
+		this.offsetCache = new ZoneOffsetCache(zoneId);
+	}
+
+	public synchronized IntUnaryOperator getMinuteReader(RecordSet records) {
+		if (System.currentTimeMillis() - indexTime > MAX_AGE) {
+			handleTableChanged();
+		}
+		BitSet missingRecords = records.toBitSet();
+		missingRecords.andNot(indexedRecords);
+		if (!missingRecords.isEmpty()) {
+			int length = missingRecords.length();
+			if (length > minuteOrdinals.length) {
+				minuteOrdinals = Arrays.copyOf(minuteOrdinals, Math.max(length, minuteOrdinals.length + (minuteOrdinals.length >> 1)));
+			}
+			for (int id = missingRecords.nextSetBit(0); id >= 0; id = missingRecords.nextSetBit(id + 1)) {
+				minuteOrdinals[id] = toMinuteOrdinal(timestampReader.applyAsLong(id), offsetCache);
+			}
+			indexedRecords.or(missingRecords);
+		}
+		int[] ordinals = minuteOrdinals;
+		return id -> ordinals[id];
+	}
+
+	public ColumnIndex getColumnIndex() {
+		return columnIndex;
+	}
+
+	public synchronized int getIndexedRecordCount() {
+		return indexedRecords.cardinality();
+	}
+
+	@Override
+	public synchronized void handleRecordChanged(int recordId) {
+		if (indexedRecords.get(recordId)) {
+			minuteOrdinals[recordId] = toMinuteOrdinal(timestampReader.applyAsLong(recordId), offsetCache);
+		}
+	}
+
+	@Override
+	public synchronized void handleTableChanged() {
+		indexedRecords.clear();
+		minuteOrdinals = new int[0];
+		indexTime = System.currentTimeMillis();
+	}
+
+	@Override
+	public void handleTrackingStopped() {
+		handleTableChanged();
+		Map<ZoneId, TimeCube> timeCubes = TIME_CUBES.get(columnIndex);
+		if (timeCubes != null) {
+			timeCubes.remove(zoneId, this);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+public enum TimeResolution {
+
+	MINUTE(60_000L),
+	HOUR(3_600_000L),
+	DAY(CalendarUnit.MILLIS_PER_DAY),
+	WEEK(7 * CalendarUnit.MILLIS_PER_DAY),
+	MONTH(30 * CalendarUnit.MILLIS_PER_DAY),
+	QUARTER(91 * CalendarUnit.MILLIS_PER_DAY),
+	YEAR(365 * CalendarUnit.MILLIS_PER_DAY);
+
+	private final long approximateMillis;
+
+	TimeResolution(long approximateMillis) {
+		this.approximateMillis = approximateMillis;
+	}
+
+	public long getApproximateMillis() {
+		return approximateMillis;
+	}
+
+	public boolean isCalendarBased() {
+		return this != MINUTE && this != HOUR;
+	}
+
+	public CalendarUnit getCalendarUnit() {
+		switch (this) {
+			case DAY:
+				return CalendarUnit.DAY;
+			case WEEK:
+				return CalendarUnit.WEEK;
+			case MONTH:
+				return CalendarUnit.MONTH;
+			case QUARTER:
+				return CalendarUnit.QUARTER;
+			case YEAR:
+				return CalendarUnit.YEAR;
+			default:
+				return null;
+		}
+	}
+
+	public long getBucket(long localMillis) {
+		switch (this) {
+			case MINUTE:
+			case HOUR:
+				return Math.floorDiv(localMillis, approximateMillis);
+			default:
+				return getCalendarUnit().getBucket(CalendarUnit.toEpochDay(localMillis));
+		}
+	}
+
+	public long getBucketStart(long bucket) {
+		if (isCalendarBased()) {
+			return getCalendarUnit().getFirstDay(bucket) * CalendarUnit.MILLIS_PER_DAY;
+		}
+		return bucket * approximateMillis;
+	}
+
+	public static TimeResolution ofApproximateMillis(long millis) {
+		TimeResolution bestMatch = MINUTE;
+		for (TimeResolution resolution : values()) {
+			if (Math.abs(Math.log(resolution.approximateMillis) - Math.log(Math.max(1, millis))) < Math.abs(Math.log(bestMatch.approximateMillis) - Math.log(Math.max(1, millis)))) {
+				bestMatch = resolution;
+			}
+		}
+		return bestMatch;
+	}
+}
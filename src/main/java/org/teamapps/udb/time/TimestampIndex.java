@@ -0,0 +1,265 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.teamapps.udb.cache.TableChangeTracker;
+import org.teamapps.udb.recordset.RecordSet;
+import org.teamapps.udb.sort.RecordSorter;
+import org.teamapps.universaldb.index.ColumnIndex;
+import org.teamapps.universaldb.index.IndexType;
+import org.teamapps.universaldb.index.TableIndex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TimestampIndex implements TableChangeTracker.TableChangeListener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TimestampIndex.class);
+	private static final Map<ColumnIndex, TimestampIndex> TIMESTAMP_INDICES = new ConcurrentHashMap<>();
+	private static final long MAX_AGE = 10 * 60_000L;
+
+	private static final ExecutorService BUILD_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "udb-timestamp-index");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final TableIndex tableIndex;
+	private final ColumnIndex columnIndex;
+	private final boolean seconds;
+	private final RecordSorter.SortKeyExtractor keyExtractor;
+	private final BitSet changedRecords = new BitSet();
+	private final BitSet buildChangedRecords = new BitSet();
+	private long version;
+	private long generation;
+	private boolean ready;
+	private long stateTime;
+	private State state = new State(new long[0], new int[0], new BitSet());
+
+	public static TimestampIndex getTimestampIndex(TableIndex tableIndex, ColumnIndex columnIndex) {
+		if (columnIndex == null || (columnIndex.getType() != IndexType.INT && columnIndex.getType() != IndexType.LONG) || !TableChangeTracker.hasWriteSignal(tableIndex)) {
+			return null;
+		}
+		return TIMESTAMP_INDICES.computeIfAbsent(columnIndex, c -> {
+			TimestampIndex timestampIndex = new TimestampIndex(tableIndex, columnIndex);
+			TableChangeTracker.addChangeListener(tableIndex, timestampIndex);
+			timestampIndex.scheduleBuild();
+			return timestampIndex;
+		});
+	}
+
+	private TimestampIndex(TableIndex tableIndex, ColumnIndex columnIndex) {
+		this(tableIndex, columnIndex, columnIndex.getType() == IndexType.INT, RecordSorter.createSortKeyExtractor(columnIndex));
+	}
+
+	TimestampIndex(TableIndex tableIndex, ColumnIndex columnIndex, boolean seconds, RecordSorter.SortKeyExtractor keyExtractor) {
+		this.tableIndex = tableIndex;
+		this.columnIndex = columnIndex;
+		this.seconds = seconds;
+		this.keyExtractor = keyExtractor;
+	}
+
+	public BitSet filter(RecordSet records, long startMillis, long endMillis) {
+		long minKey = seconds ? (int) (startMillis / 1000) : startMillis;
+		long maxKey = seconds ? (int) (endMillis / 1000) : endMillis;
+		long filterVersion;
+		State currentState;
+		synchronized (this) {
+			filterVersion = version;
+			currentState = getState();
+		}
+		BitSet recordBits = records.toBitSet();
+		BitSet result = new BitSet(recordBits.length());
+		long[] keys = currentState.keys;
+		int[] ids = currentState.ids;
+		for (int i = lowerBound(keys, minKey); i < keys.length && keys[i] <= maxKey; i++) {
+			int id = ids[i];
+			if (currentState.indexedRecords.get(id)) {
+				result.set(id);
+			}
+		}
+		result.and(recordBits);
+		recordBits.andNot(currentState.indexedRecords);
+		if (!recordBits.isEmpty()) {
+			int[] addedIds = recordBits.stream().toArray();
+			long[] addedKeys = new long[addedIds.length];
+			for (int i = 0; i < addedIds.length; i++) {
+				long key = keyExtractor.getSortKey(addedIds[i]);
+				addedKeys[i] = key;
+				if (key >= minKey && key <= maxKey) {
+					result.set(addedIds[i]);
+				}
+			}
+			RecordSorter.sortByKeys(addedKeys, addedIds);
+			addRecords(addedKeys, addedIds, filterVersion);
+		}
+		return result;
+	}
+
+	public synchronized boolean isReady() {
+		if (ready && System.currentTimeMillis() - stateTime > MAX_AGE) {
+			handleTableChanged();
+		}
+		return ready;
+	}
+
+	public ColumnIndex getColumnIndex() {
+		return columnIndex;
+	}
+
+	public synchronized int getIndexedRecordCount() {
+		return getState().indexedRecords.cardinality();
+	}
+
+	@Override
+	public synchronized void handleRecordChanged(int recordId) {
+		version++;
+		changedRecords.set(recordId);
+		if (!ready) {
+			buildChangedRecords.set(recordId);
+		}
+	}
+
+	@Override
+	public synchronized void handleTableChanged() {
+		version++;
+		changedRecords.clear();
+		state = new State(new long[0], new int[0], new BitSet());
+		scheduleBuild();
+	}
+
+	@Override
+	public void handleTrackingStopped() {
+		synchronized (this) {
+			version++;
+			generation++;
+			ready = false;
+			changedRecords.clear();
+			state = new State(new long[0], new int[0], new BitSet());
+		}
+		TIMESTAMP_INDICES.remove(columnIndex, this);
+	}
+
+	private synchronized void scheduleBuild() {
+		long buildGeneration = ++generation;
+		ready = false;
+		buildChangedRecords.clear();
+		BUILD_EXECUTOR.execute(() -> build(buildGeneration));
+	}
+
+	private void build(long buildGeneration) {
+		try {
+			BitSet records = (BitSet) tableIndex.getRecordBitSet().clone();
+			int[] ids = records.stream().toArray();
+			long[] keys = new long[ids.length];
+			for (int i = 0; i < ids.length; i++) {
+				keys[i] = keyExtractor.getSortKey(ids[i]);
+			}
+			RecordSorter.sortByKeys(keys, ids);
+			synchronized (this) {
+				if (buildGeneration != generation) {
+					return;
+				}
+				records.andNot(buildChangedRecords);
+				buildChangedRecords.clear();
+				changedRecords.clear();
+				version++;
+				state = new State(keys, ids, records);
+				stateTime = System.currentTimeMillis();
+				ready = true;
+			}
+		} catch (Exception e) {
+			LOGGER.error("Failed to build timestamp index for column " + columnIndex.getName(), e);
+		}
+	}
+
+	private State getState() {
+		if (!changedRecords.isEmpty()) {
+			BitSet indexedRecords = (BitSet) state.indexedRecords.clone();
+			indexedRecords.andNot(changedRecords);
+			changedRecords.clear();
+			state = new State(state.keys, state.ids, indexedRecords);
+		}
+		return state;
+	}
+
+	private synchronized void addRecords(long[] addedKeys, int[] addedIds, long filterVersion) {
+		if (filterVersion != version) {
+			return;
+		}
+		State currentState = getState();
+		BitSet indexedRecords = (BitSet) currentState.indexedRecords.clone();
+		int indexedCount = indexedRecords.cardinality();
+		long[] keys = new long[indexedCount + addedIds.length];
+		int[] ids = new int[keys.length];
+		int i = 0;
+		int j = 0;
+		int pos = 0;
+		while (i < currentState.ids.length || j < addedIds.length) {
+			if (i < currentState.ids.length && !indexedRecords.get(currentState.ids[i])) {
+				i++;
+			} else if (j < addedIds.length && indexedRecords.get(addedIds[j])) {
+				j++;
+			} else if (j >= addedIds.length || (i < currentState.ids.length && currentState.keys[i] <= addedKeys[j])) {
+				keys[pos] = currentState.keys[i];
+				ids[pos++] = currentState.ids[i++];
+			} else {
+				keys[pos] = addedKeys[j];
+				ids[pos++] = addedIds[j++];
+			}
+		}
+		for (int id : addedIds) {
+			indexedRecords.set(id);
+		}
+		state = new State(pos < keys.length ? Arrays.copyOf(keys, pos) : keys, pos < ids.length ? Arrays.copyOf(ids, pos) : ids, indexedRecords);
+	}
+
+	private static int lowerBound(long[] keys, long key) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid] < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static class State {
+		private final long[] keys;
+		private final int[] ids;
+		private final BitSet indexedRecords;
+
+		private State(long[] keys, int[] ids, BitSet indexedRecords) {
+			this.keys = keys;
+			this.ids = ids;
+			this.indexedRecords = indexedRecords;
+		}
+	}
+}
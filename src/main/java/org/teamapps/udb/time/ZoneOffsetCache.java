@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+public class ZoneOffsetCache {
+
+	private static final int SLOTS = 64;
+
+	private final ZoneRules rules;
+	private final boolean fixedOffset;
+	private final long fixedOffsetMillis;
+	private final long[] validFrom = new long[SLOTS];
+	private final long[] validTo = new long[SLOTS];
+	private final long[] offsets = new long[SLOTS];
+
+	public ZoneOffsetCache(ZoneId zoneId) {
+		this.rules = zoneId.getRules();
+		this.fixedOffset = rules.isFixedOffset();
+		this.fixedOffsetMillis = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+		Arrays.fill(validFrom, Long.MAX_VALUE);
+		Arrays.fill(validTo, Long.MIN_VALUE);
+	}
+
+	public long toLocalMillis(long epochMillis) {
+		return epochMillis + getOffsetMillis(epochMillis);
+	}
+
+	public long toEpochMillis(long localMillis) {
+		if (fixedOffset) {
+			return localMillis - fixedOffsetMillis;
+		}
+		LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L), (int) Math.floorMod(localMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+		return localMillis - rules.getOffset(dateTime).getTotalSeconds() * 1000L;
+	}
+
+	public long getOffsetMillis(long epochMillis) {
+		if (fixedOffset) {
+			return fixedOffsetMillis;
+		}
+		int slot = (int) ((epochMillis >> 31) & (SLOTS - 1));
+		if (epochMillis >= validFrom[slot] && epochMillis < validTo[slot]) {
+			return offsets[slot];
+		}
+		Instant instant = Instant.ofEpochMilli(epochMillis);
+		long offset = rules.getOffset(instant).getTotalSeconds() * 1000L;
+		ZoneOffsetTransition previous = rules.previousTransition(Instant.ofEpochMilli(epochMillis + 1000));
+		if (previous != null && previous.toEpochSecond() * 1000 > epochMillis) {
+			previous = rules.previousTransition(previous.getInstant());
+		}
+		ZoneOffsetTransition next = rules.nextTransition(instant);
+		validFrom[slot] = previous != null ? previous.toEpochSecond() * 1000 : Long.MIN_VALUE;
+		validTo[slot] = next != null ? next.toEpochSecond() * 1000 : Long.MAX_VALUE;
+		offsets[slot] = offset;
+		return offset;
+	}
+}
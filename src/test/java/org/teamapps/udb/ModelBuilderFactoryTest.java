@@ -0,0 +1,43 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ModelBuilderFactoryTest {
+
+	@Test
+	public void testExtendingLastTermRefinesResult() {
+		assertTrue(ModelBuilderFactory.extendsLastTerm("mül", "müller"));
+		assertTrue(ModelBuilderFactory.extendsLastTerm("müller s", "müller sc"));
+		assertTrue(ModelBuilderFactory.extendsLastTerm("müller", "müller"));
+	}
+
+	@Test
+	public void testOtherEditsDoNotRefineResult() {
+		assertFalse(ModelBuilderFactory.extendsLastTerm("müller", "müller schmidt"));
+		assertFalse(ModelBuilderFactory.extendsLastTerm("müller s", "müllers s"));
+		assertFalse(ModelBuilderFactory.extendsLastTerm("müller sc", "müller s"));
+		assertFalse(ModelBuilderFactory.extendsLastTerm("müller schmidt", "schmidt"));
+	}
+}
@@ -0,0 +1,84 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.cache;
+
+import org.junit.Test;
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResultCacheTest {
+
+	@Test
+	public void testResultIsSharedUntilTableChanges() {
+		ResultCache cache = new ResultCache();
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<RecordSet> loader = createLoader(loads);
+		RecordSet result = cache.getResult("db.table/a", 1, 100, loader);
+		assertSame(result, cache.getResult("db.table/a", 1, 100, loader));
+		assertEquals(1, loads.get());
+
+		cache.getResult("db.table/a", 2, 100, loader);
+		assertEquals(2, loads.get());
+		cache.getResult("db.table/a", 2, 101, loader);
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	public void testInvalidateRemovesOnlyTableEntries() {
+		ResultCache cache = new ResultCache();
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<RecordSet> loader = createLoader(loads);
+		cache.getResult("db.table/a", 1, 100, loader);
+		cache.getResult("db.other/a", 1, 100, loader);
+		cache.invalidate("db.table/");
+		cache.getResult("db.other/a", 1, 100, loader);
+		assertEquals(2, loads.get());
+		cache.getResult("db.table/a", 1, 100, loader);
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	public void testEvictionKeepsUsedBytesWithinLimit() {
+		ResultCache cache = new ResultCache();
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<RecordSet> loader = createLoader(loads);
+		long entryBytes = cache.getResult("db.table/a", 1, 100, loader).getSizeInBytes();
+		cache.setMaxBytes(entryBytes);
+		cache.getResult("db.table/b", 1, 100, loader);
+		assertEquals(entryBytes, cache.getUsedBytes());
+		cache.getResult("db.table/a", 1, 100, loader);
+		assertEquals(3, loads.get());
+	}
+
+	private static Supplier<RecordSet> createLoader(AtomicInteger loads) {
+		return () -> {
+			loads.incrementAndGet();
+			BitSet bitSet = new BitSet();
+			bitSet.set(1, 1000);
+			return RecordSet.of(bitSet);
+		};
+	}
+}
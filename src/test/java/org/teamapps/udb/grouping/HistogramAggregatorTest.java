@@ -0,0 +1,174 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.junit.Test;
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramAggregatorTest {
+
+	@Test
+	public void testEqualWidthBins() {
+		double[] values = new double[100];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		HistogramAggregator aggregator = createAggregator(values, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH);
+		aggregator.addAll(createRecords(values.length));
+		assertEquals(20, aggregator.getGroupCount());
+		assertEquals(new NumericRange(Double.NEGATIVE_INFINITY, 4), aggregator.getBinRange(0));
+		assertEquals(new NumericRange(5, 9), aggregator.getBinRange(1));
+		assertEquals(new NumericRange(95, Double.POSITIVE_INFINITY), aggregator.getBinRange(19));
+		List<GroupingEntry> entries = aggregator.getEntries();
+		assertEquals(20, entries.size());
+		for (GroupingEntry entry : entries) {
+			assertEquals(5, entry.getCount());
+		}
+		assertEquals("5 - 9", findEntry(entries, aggregator.getBinRange(1)).getValue());
+	}
+
+	@Test
+	public void testBinsCoverAllValues() {
+		Random random = new Random(3);
+		double[] values = new double[5_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextGaussian() * 1_000;
+		}
+		for (GroupingNodeType nodeType : new GroupingNodeType[]{GroupingNodeType.HISTOGRAM_EQUAL_WIDTH, GroupingNodeType.HISTOGRAM_EQUAL_DEPTH, GroupingNodeType.HISTOGRAM_LOG}) {
+			HistogramAggregator aggregator = createAggregator(values, false, nodeType);
+			RecordSet records = createRecords(values.length);
+			aggregator.addAll(records);
+			int total = 0;
+			for (GroupingEntry entry : aggregator.getEntries()) {
+				assertEquals(entry.getCount(), aggregator.countExact(records, entry.getKey()));
+				total += entry.getCount();
+			}
+			assertEquals(values.length, total);
+			for (double value : values) {
+				int matchingBins = 0;
+				for (int bin = 0; bin < aggregator.getGroupCount(); bin++) {
+					matchingBins += aggregator.getBinRange(bin).contains(value) ? 1 : 0;
+				}
+				assertEquals(1, matchingBins);
+			}
+		}
+	}
+
+	@Test
+	public void testEqualDepthBins() {
+		Random random = new Random(5);
+		double[] values = new double[10_000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Math.exp(random.nextDouble() * 10);
+		}
+		HistogramAggregator aggregator = createAggregator(values, false, GroupingNodeType.HISTOGRAM_EQUAL_DEPTH).setBinCount(10);
+		aggregator.addAll(createRecords(values.length));
+		assertEquals(10, aggregator.getGroupCount());
+		for (GroupingEntry entry : aggregator.getEntries()) {
+			assertTrue(Math.abs(entry.getCount() - 1_000) < 100);
+		}
+	}
+
+	@Test
+	public void testLogBins() {
+		double[] values = {-500, -0.5, 0, 3, 42, 999, 1_000, 123_456};
+		HistogramAggregator aggregator = createAggregator(values, false, GroupingNodeType.HISTOGRAM_LOG);
+		aggregator.addAll(createRecords(values.length));
+		for (int i = 0; i < values.length; i++) {
+			GroupingEntry entry = findEntry(aggregator.getEntries(), values[i]);
+			assertEquals(1, entry.getCount());
+		}
+		assertEquals(new NumericRange(1_000, Math.nextDown(10_000d)), findEntry(aggregator.getEntries(), 1_000).getKey());
+		assertEquals(new NumericRange(1, Math.nextDown(10d)), findEntry(aggregator.getEntries(), 3).getKey());
+	}
+
+	@Test
+	public void testRemoveUpdatesBins() {
+		double[] values = {1, 2, 3, 50, 51, 99};
+		HistogramAggregator aggregator = createAggregator(values, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH).setBinCount(2);
+		aggregator.addAll(createRecords(values.length));
+		assertEquals(2, aggregator.getEntries().size());
+		assertEquals("50 - 99", findEntry(aggregator.getEntries(), 50).getValue());
+		aggregator.remove(3);
+		assertEquals(2, findEntry(aggregator.getEntries(), 50).getCount());
+		aggregator.remove(4);
+		aggregator.remove(5);
+		List<GroupingEntry> entries = aggregator.getEntries();
+		assertEquals(1, entries.size());
+		assertEquals(3, entries.get(0).getCount());
+		aggregator.add(4);
+		assertEquals("51", findEntry(aggregator.getEntries(), 51).getValue());
+	}
+
+	@Test
+	public void testMergeAddsCounts() {
+		double[] values = new double[100];
+		int[] recordIds = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+			recordIds[i] = i;
+		}
+		HistogramAggregator aggregator = createAggregator(values, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH);
+		HistogramAggregator otherAggregator = createAggregator(values, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH);
+		aggregator.prepare(recordIds);
+		otherAggregator.prepare(recordIds);
+		aggregator.addAll(recordIds, 0, 30);
+		otherAggregator.addAll(recordIds, 30, recordIds.length);
+		aggregator.merge(otherAggregator);
+		for (GroupingEntry entry : aggregator.getEntries()) {
+			assertEquals(5, entry.getCount());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeRejectsDifferentBins() {
+		HistogramAggregator aggregator = createAggregator(new double[]{0, 100}, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH);
+		HistogramAggregator otherAggregator = createAggregator(new double[]{0, 1_000}, true, GroupingNodeType.HISTOGRAM_EQUAL_WIDTH);
+		aggregator.addAll(createRecords(2));
+		otherAggregator.addAll(createRecords(2));
+		aggregator.merge(otherAggregator);
+	}
+
+	private static HistogramAggregator createAggregator(double[] values, boolean integral, GroupingNodeType nodeType) {
+		return new HistogramAggregator(null, recordId -> values[recordId], integral, nodeType, "-", Locale.ROOT);
+	}
+
+	private static RecordSet createRecords(int count) {
+		BitSet bitSet = new BitSet();
+		bitSet.set(0, count);
+		return RecordSet.of(bitSet);
+	}
+
+	private static GroupingEntry findEntry(List<GroupingEntry> entries, Object key) {
+		return entries.stream().filter(entry -> key.equals(entry.getKey())).findFirst().orElseThrow(AssertionError::new);
+	}
+
+	private static GroupingEntry findEntry(List<GroupingEntry> entries, double value) {
+		return entries.stream().filter(entry -> ((NumericRange) entry.getKey()).contains(value)).findFirst().orElseThrow(AssertionError::new);
+	}
+}
@@ -0,0 +1,144 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.grouping;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpaceSavingSketchTest {
+
+	private static final int CAPACITY = 20;
+
+	@Test
+	public void testExactBelowCapacity() {
+		SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(CAPACITY);
+		sketch.add("a", 1, 3);
+		sketch.add("b", 2, 1);
+		sketch.add("a", 3, 2);
+		List<SpaceSavingSketch.Counter<String>> counters = sketch.getCounters();
+		assertEquals(2, counters.size());
+		assertEquals("a", counters.get(0).getKey());
+		assertEquals(5, counters.get(0).getCount());
+		assertEquals(0, counters.get(0).getError());
+		assertEquals(1, counters.get(0).getRecordId());
+		assertEquals(1, counters.get(1).getCount());
+		assertEquals(6, sketch.getTotal());
+	}
+
+	@Test
+	public void testBoundsAfterOverflow() {
+		Map<Integer, Long> exactCounts = new HashMap<>();
+		SpaceSavingSketch<Integer> sketch = createSketch(new Random(1), 0, exactCounts);
+		assertEquals(CAPACITY, sketch.getCounters().size());
+		assertBounds(sketch, exactCounts);
+	}
+
+	@Test
+	public void testMerge() {
+		Random random = new Random(2);
+		Map<Integer, Long> exactCounts = new HashMap<>();
+		SpaceSavingSketch<Integer> sketch = createSketch(random, 0, exactCounts);
+		SpaceSavingSketch<Integer> otherSketch = createSketch(random, 50, exactCounts);
+		long total = sketch.getTotal() + otherSketch.getTotal();
+		sketch.merge(otherSketch);
+		assertEquals(total, sketch.getTotal());
+		assertEquals(CAPACITY, sketch.getCounters().size());
+		assertBounds(sketch, exactCounts);
+	}
+
+	@Test
+	public void testMergeOfSmallSketchesIsExact() {
+		SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(CAPACITY);
+		SpaceSavingSketch<String> otherSketch = new SpaceSavingSketch<>(CAPACITY);
+		sketch.add("a", 1, 4);
+		sketch.add("b", 2, 1);
+		otherSketch.add("b", 3, 6);
+		otherSketch.add("c", 4, 2);
+		sketch.merge(otherSketch);
+		List<SpaceSavingSketch.Counter<String>> counters = sketch.getCounters();
+		assertEquals(3, counters.size());
+		assertEquals("b", counters.get(0).getKey());
+		assertEquals(7, counters.get(0).getCount());
+		assertEquals("a", counters.get(1).getKey());
+		assertEquals(4, counters.get(1).getCount());
+		assertEquals("c", counters.get(2).getKey());
+		assertEquals(4, counters.get(2).getRecordId());
+		for (SpaceSavingSketch.Counter<String> counter : counters) {
+			assertEquals(0, counter.getError());
+		}
+		assertEquals(13, sketch.getTotal());
+	}
+
+	@Test
+	public void testMergedSketchKeepsAcceptingValues() {
+		Random random = new Random(3);
+		Map<Integer, Long> exactCounts = new HashMap<>();
+		SpaceSavingSketch<Integer> sketch = createSketch(random, 0, exactCounts);
+		sketch.merge(createSketch(random, 10, exactCounts));
+		for (int i = 0; i < 5_000; i++) {
+			int key = random.nextInt(200);
+			sketch.add(key, i, 1);
+			exactCounts.merge(key, 1L, Long::sum);
+		}
+		assertBounds(sketch, exactCounts);
+	}
+
+	private static SpaceSavingSketch<Integer> createSketch(Random random, int keyOffset, Map<Integer, Long> exactCounts) {
+		SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(CAPACITY);
+		for (int i = 0; i < 10_000; i++) {
+			int key = random.nextInt(4) == 0 ? keyOffset + random.nextInt(5) : keyOffset + random.nextInt(500);
+			sketch.add(key, i, 1);
+			exactCounts.merge(key, 1L, Long::sum);
+		}
+		return sketch;
+	}
+
+	private static void assertBounds(SpaceSavingSketch<Integer> sketch, Map<Integer, Long> exactCounts) {
+		long total = exactCounts.values().stream().mapToLong(Long::longValue).sum();
+		assertEquals(total, sketch.getTotal());
+		Set<Integer> monitoredKeys = new HashSet<>();
+		long minCount = Long.MAX_VALUE;
+		for (SpaceSavingSketch.Counter<Integer> counter : sketch.getCounters()) {
+			long exactCount = exactCounts.getOrDefault(counter.getKey(), 0L);
+			assertTrue(counter.getCount() >= exactCount);
+			assertTrue(counter.getGuaranteedCount() <= exactCount);
+			assertTrue(counter.getError() <= total / CAPACITY);
+			monitoredKeys.add(counter.getKey());
+			minCount = Math.min(minCount, counter.getCount());
+		}
+		for (Map.Entry<Integer, Long> entry : exactCounts.entrySet()) {
+			if (!monitoredKeys.contains(entry.getKey())) {
+				assertTrue(entry.getValue() <= minCount);
+			}
+			if (entry.getValue() > total / CAPACITY) {
+				assertTrue(monitoredKeys.contains(entry.getKey()));
+			}
+		}
+	}
+}
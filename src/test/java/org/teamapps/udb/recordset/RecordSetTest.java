@@ -0,0 +1,115 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.recordset;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordSetTest {
+
+	@Test
+	public void testCompressedRecordSetMatchesBitSet() {
+		BitSet bitSet = createBitSet();
+		checkRecordSet(bitSet, RecordSet.compressed(bitSet));
+	}
+
+	@Test
+	public void testBitSetRecordSetMatchesBitSet() {
+		BitSet bitSet = createBitSet();
+		checkRecordSet(bitSet, RecordSet.uncompressed(bitSet));
+	}
+
+	@Test
+	public void testSelectReturnsIdByRank() {
+		BitSet bitSet = createBitSet();
+		int[] ids = bitSet.stream().toArray();
+		for (RecordSet records : new RecordSet[]{RecordSet.compressed(bitSet), RecordSet.uncompressed(bitSet)}) {
+			for (int rank = 0; rank < ids.length; rank += 13) {
+				assertEquals(ids[rank], records.select(rank));
+			}
+			assertEquals(ids[ids.length - 1], records.select(ids.length - 1));
+			assertEquals(-1, records.select(ids.length));
+			assertEquals(-1, records.select(-1));
+		}
+	}
+
+	@Test
+	public void testSetOperations() {
+		BitSet bitSet = createBitSet();
+		BitSet other = new BitSet();
+		other.set(50_000, 300_000);
+		RecordSet records = RecordSet.compressed(bitSet);
+		RecordSet otherRecords = RecordSet.uncompressed(other);
+
+		BitSet expected = (BitSet) bitSet.clone();
+		expected.and(other);
+		assertEquals(expected, records.and(otherRecords).toBitSet());
+		expected = (BitSet) bitSet.clone();
+		expected.or(other);
+		assertEquals(expected, records.or(otherRecords).toBitSet());
+		expected = (BitSet) bitSet.clone();
+		expected.andNot(other);
+		assertEquals(expected, records.andNot(otherRecords).toBitSet());
+	}
+
+	@Test
+	public void testEmptyRecordSet() {
+		RecordSet records = RecordSet.compressed(new BitSet());
+		assertTrue(records.isEmpty());
+		assertEquals(-1, records.nextRecord(0));
+		assertFalse(records.iterator().hasNext());
+	}
+
+	private static void checkRecordSet(BitSet expected, RecordSet records) {
+		assertEquals(expected.cardinality(), records.cardinality());
+		assertEquals(expected, records.toBitSet());
+		for (int id = 0; id < expected.length() + 10; id += 7) {
+			assertEquals(expected.get(id), records.contains(id));
+			assertEquals(expected.nextSetBit(id), records.nextRecord(id));
+		}
+		PrimitiveIterator.OfInt iterator = records.iterator();
+		int[] ids = new int[records.cardinality()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = iterator.nextInt();
+		}
+		assertFalse(iterator.hasNext());
+		assertArrayEquals(expected.stream().toArray(), ids);
+	}
+
+	private static BitSet createBitSet() {
+		Random random = new Random(42);
+		BitSet bitSet = new BitSet();
+		bitSet.set(3);
+		bitSet.set(70_000, 140_000);
+		for (int i = 0; i < 5_000; i++) {
+			bitSet.set(200_000 + random.nextInt(800_000));
+		}
+		bitSet.set(1_000_000);
+		return bitSet;
+	}
+}
@@ -0,0 +1,107 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.sort;
+
+import org.junit.Test;
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecordSorterTest {
+
+	@Test
+	public void testSortByKeysIsStable() {
+		Random random = new Random(7);
+		int size = 10_000;
+		long[] keys = new long[size];
+		int[] ids = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt(50) - 25;
+			ids[i] = i;
+		}
+		long[] originalKeys = keys.clone();
+		RecordSorter.sortByKeys(keys, ids);
+		for (int i = 0; i < size; i++) {
+			assertTrue(keys[i] == originalKeys[ids[i]]);
+			if (i > 0) {
+				assertTrue(keys[i - 1] < keys[i] || (keys[i - 1] == keys[i] && ids[i - 1] < ids[i]));
+			}
+		}
+	}
+
+	@Test
+	public void testSortByKeysSortsSmallAndPresortedInput() {
+		long[] keys = {3, 1, 2};
+		int[] ids = {0, 1, 2};
+		RecordSorter.sortByKeys(keys, ids);
+		assertArrayEquals(new int[]{1, 2, 0}, ids);
+
+		keys = new long[100];
+		ids = new int[100];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i / 10;
+			ids[i] = i;
+		}
+		int[] expected = ids.clone();
+		RecordSorter.sortByKeys(keys, ids);
+		assertArrayEquals(expected, ids);
+	}
+
+	@Test
+	public void testTopKMatchesFullSort() {
+		Random random = new Random(11);
+		int size = 5_000;
+		long[] values = new long[size];
+		BitSet bitSet = new BitSet();
+		for (int i = 0; i < size; i++) {
+			values[i] = random.nextInt(100);
+			if (random.nextInt(3) > 0) {
+				bitSet.set(i);
+			}
+		}
+		RecordSet records = RecordSet.of(bitSet);
+		int[] ids = RecordSorter.toArray(records);
+		long[] keys = new long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			keys[i] = values[ids[i]];
+		}
+		RecordSorter.sortByKeys(keys, ids);
+		int[] descendingIds = ids.clone();
+		RecordSorter.reverse(descendingIds);
+		for (int k : new int[]{1, 10, 250}) {
+			assertArrayEquals(Arrays.copyOf(ids, k), RecordSorter.selectTopK(records, id -> values[id], true, k));
+			assertArrayEquals(Arrays.copyOf(descendingIds, k), RecordSorter.selectTopK(records, id -> values[id], false, k));
+		}
+	}
+
+	@Test
+	public void testSortableLongKeepsDoubleOrder() {
+		double[] values = {Double.NEGATIVE_INFINITY, -1e300, -2.5, -0.0, 0.0, 1e-300, 3.75, Double.MAX_VALUE, Double.POSITIVE_INFINITY};
+		long[] keys = Arrays.stream(values).mapToLong(RecordSorter::toSortableLong).toArray();
+		for (int i = 1; i < keys.length; i++) {
+			assertTrue(keys[i - 1] <= keys[i]);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.sort;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SortIndexTest {
+
+	private static final int SIZE = 10_000;
+
+	private long[] values;
+	private SortIndex sortIndex;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(5);
+		values = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			values[i] = random.nextInt(500);
+		}
+		sortIndex = new SortIndex(null, Locale.ROOT, (id1, id2) -> Long.compare(values[id1], values[id2]), this::sort);
+	}
+
+	@Test
+	public void testSortMatchesDirectSort() {
+		RecordSet records = createRecords(0, 1);
+		assertArrayEquals(sort(records), sortIndex.sort(records, true));
+		assertEquals(records.cardinality(), sortIndex.getIndexedRecordCount());
+		int[] expected = sort(records);
+		RecordSorter.reverse(expected);
+		assertArrayEquals(expected, sortIndex.sort(records, false));
+	}
+
+	@Test
+	public void testIndexIsExtendedBySubsequentSorts() {
+		RecordSet evenRecords = createRecords(0, 2);
+		RecordSet allRecords = createRecords(0, 1);
+		sortIndex.sort(evenRecords, true);
+		assertEquals(evenRecords.cardinality(), sortIndex.getIndexedRecordCount());
+		assertArrayEquals(sort(allRecords), sortIndex.sort(allRecords, true));
+		assertEquals(SIZE, sortIndex.getIndexedRecordCount());
+		RecordSet thirdRecords = createRecords(1, 3);
+		assertArrayEquals(sort(thirdRecords), sortIndex.sort(thirdRecords, true));
+	}
+
+	@Test
+	public void testChangedRecordsAreResorted() {
+		RecordSet records = createRecords(0, 1);
+		sortIndex.sort(records, true);
+		values[17] = -1;
+		values[42] = 1_000;
+		sortIndex.handleRecordChanged(17);
+		sortIndex.handleRecordChanged(42);
+		assertEquals(SIZE - 2, sortIndex.getIndexedRecordCount());
+		int[] sortedIds = sortIndex.sort(records, true);
+		assertEquals(17, sortedIds[0]);
+		assertEquals(42, sortedIds[SIZE - 1]);
+		assertArrayEquals(sort(records), sortedIds);
+	}
+
+	@Test
+	public void testSmallRecordSetsAreSortedDirectly() {
+		sortIndex.sort(createRecords(0, 1), true);
+		BitSet bitSet = new BitSet();
+		bitSet.set(5);
+		bitSet.set(500);
+		bitSet.set(5_000);
+		RecordSet records = RecordSet.of(bitSet);
+		assertArrayEquals(sort(records), sortIndex.sort(records, true));
+		assertEquals(SIZE, sortIndex.getIndexedRecordCount());
+	}
+
+	@Test
+	public void testTableChangeClearsIndex() {
+		sortIndex.sort(createRecords(0, 1), true);
+		sortIndex.handleTableChanged();
+		assertEquals(0, sortIndex.getIndexedRecordCount());
+	}
+
+	private RecordSet createRecords(int start, int step) {
+		BitSet bitSet = new BitSet();
+		for (int id = start; id < SIZE; id += step) {
+			bitSet.set(id);
+		}
+		return RecordSet.of(bitSet);
+	}
+
+	private int[] sort(RecordSet records) {
+		int[] ids = RecordSorter.toArray(records);
+		long[] keys = new long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			keys[i] = values[ids[i]];
+		}
+		RecordSorter.sortByKeys(keys, ids);
+		return ids;
+	}
+}
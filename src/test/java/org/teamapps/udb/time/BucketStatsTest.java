@@ -0,0 +1,144 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BucketStatsTest {
+
+	@Test
+	public void testMeasuredAggregations() {
+		Random random = new Random(11);
+		BucketStats stats = new BucketStats(true);
+		Map<Long, double[]> expected = new HashMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			long bucket = random.nextInt(2_000) - 1_000;
+			double value = random.nextInt(10_000) / 100d - 50;
+			stats.add(bucket, value);
+			add(expected, bucket, 1, value, value, value);
+		}
+		assertStats(expected, stats);
+	}
+
+	@Test
+	public void testBucketsGrowInBothDirections() {
+		BucketStats stats = new BucketStats(false);
+		assertTrue(stats.isEmpty());
+		stats.add(100);
+		stats.add(5);
+		stats.add(100_000);
+		stats.add(-3);
+		stats.add(100);
+		assertFalse(stats.isEmpty());
+		assertTrue(stats.getFirstBucket() <= -3);
+		assertTrue(stats.getLastBucket() >= 100_000);
+		assertEquals(2, stats.getCount(100));
+		assertEquals(1, stats.getCount(5));
+		assertEquals(1, stats.getCount(100_000));
+		assertEquals(1, stats.getCount(-3));
+		assertEquals(0, stats.getCount(6));
+		assertEquals(0, stats.getCount(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testUnmeasuredStatsReturnCounts() {
+		BucketStats stats = new BucketStats(false);
+		stats.add(7);
+		stats.add(7);
+		for (MeasureAggregation aggregation : MeasureAggregation.values()) {
+			assertEquals(2, stats.getValue(7, aggregation), 0);
+			assertEquals(0, stats.getValue(8, aggregation), 0);
+		}
+	}
+
+	@Test
+	public void testRollUp() {
+		Random random = new Random(13);
+		BucketStats minuteStats = new BucketStats(true);
+		BucketStats hourStats = new BucketStats(true);
+		Map<Long, double[]> expected = new HashMap<>();
+		for (int i = 0; i < 10_000; i++) {
+			long minute = random.nextInt(100_000) - 50_000;
+			double value = random.nextGaussian();
+			minuteStats.add(minute, value);
+			add(expected, Math.floorDiv(minute, 60), 1, value, value, value);
+		}
+		for (long minute = minuteStats.getFirstBucket(); minute <= minuteStats.getLastBucket(); minute++) {
+			hourStats.add(Math.floorDiv(minute, 60), minuteStats, minute);
+		}
+		hourStats.add(0, minuteStats, minuteStats.getLastBucket() + 1);
+		assertStats(expected, hourStats);
+	}
+
+	@Test
+	public void testMerge() {
+		BucketStats stats = new BucketStats(true);
+		BucketStats otherStats = new BucketStats(true);
+		stats.add(1, 5);
+		otherStats.add(1, -2);
+		otherStats.add(1, 9);
+		otherStats.add(2, 4);
+		stats.add(1, otherStats, 1);
+		stats.add(3, otherStats, 2);
+		assertEquals(3, stats.getCount(1));
+		assertEquals(12, stats.getValue(1, MeasureAggregation.SUM), 1e-9);
+		assertEquals(4, stats.getValue(1, MeasureAggregation.AVERAGE), 1e-9);
+		assertEquals(-2, stats.getValue(1, MeasureAggregation.MIN), 0);
+		assertEquals(9, stats.getValue(1, MeasureAggregation.MAX), 0);
+		assertEquals(0, stats.getCount(2));
+		assertEquals(4, stats.getValue(3, MeasureAggregation.MAX), 0);
+	}
+
+	private static void add(Map<Long, double[]> expected, long bucket, int count, double sum, double min, double max) {
+		double[] values = expected.computeIfAbsent(bucket, b -> new double[]{0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+		values[0] += count;
+		values[1] += sum;
+		values[2] = Math.min(values[2], min);
+		values[3] = Math.max(values[3], max);
+	}
+
+	private static void assertStats(Map<Long, double[]> expected, BucketStats stats) {
+		for (long bucket = stats.getFirstBucket() - 1; bucket <= stats.getLastBucket() + 1; bucket++) {
+			double[] values = expected.get(bucket);
+			if (values == null) {
+				assertEquals(0, stats.getCount(bucket));
+				assertEquals(0, stats.getValue(bucket, MeasureAggregation.SUM), 0);
+				continue;
+			}
+			assertEquals((long) values[0], stats.getCount(bucket));
+			assertEquals(values[0], stats.getValue(bucket, MeasureAggregation.COUNT), 0);
+			assertEquals(values[1], stats.getValue(bucket, MeasureAggregation.SUM), 1e-6);
+			assertEquals(values[1] / values[0], stats.getValue(bucket, MeasureAggregation.AVERAGE), 1e-6);
+			assertEquals(values[2], stats.getValue(bucket, MeasureAggregation.MIN), 0);
+			assertEquals(values[3], stats.getValue(bucket, MeasureAggregation.MAX), 0);
+		}
+		for (long bucket : expected.keySet()) {
+			assertTrue(bucket >= stats.getFirstBucket() && bucket <= stats.getLastBucket());
+		}
+	}
+}
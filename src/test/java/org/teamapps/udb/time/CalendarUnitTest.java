@@ -0,0 +1,113 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CalendarUnitTest {
+
+	private static final long FIRST_DAY = LocalDate.of(1599, 12, 1).toEpochDay();
+	private static final long LAST_DAY = LocalDate.of(2401, 3, 1).toEpochDay();
+
+	@Test
+	public void testBucketsMatchCalendar() {
+		for (long epochDay = FIRST_DAY; epochDay <= LAST_DAY; epochDay++) {
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			assertEquals(date.getYear(), CalendarUnit.YEAR.getBucket(epochDay));
+			assertEquals(date.getYear() * 4L + date.get(IsoFields.QUARTER_OF_YEAR) - 1, CalendarUnit.QUARTER.getBucket(epochDay));
+			assertEquals(date.getYear() * 12L + date.getMonthValue() - 1, CalendarUnit.MONTH.getBucket(epochDay));
+			assertEquals(epochDay, CalendarUnit.DAY.getBucket(epochDay));
+		}
+	}
+
+	@Test
+	public void testFirstDayMatchesCalendar() {
+		for (long epochDay = FIRST_DAY; epochDay <= LAST_DAY; epochDay++) {
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			assertEquals(date.withDayOfYear(1).toEpochDay(), firstDay(CalendarUnit.YEAR, epochDay));
+			assertEquals(date.with(IsoFields.DAY_OF_QUARTER, 1).toEpochDay(), firstDay(CalendarUnit.QUARTER, epochDay));
+			assertEquals(date.withDayOfMonth(1).toEpochDay(), firstDay(CalendarUnit.MONTH, epochDay));
+			assertEquals(date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay(), firstDay(CalendarUnit.WEEK, epochDay));
+		}
+	}
+
+	@Test
+	public void testBucketsAreContiguous() {
+		for (CalendarUnit unit : CalendarUnit.values()) {
+			long bucket = unit.getBucket(FIRST_DAY);
+			long endDay = unit.getEndDay(bucket);
+			for (long epochDay = FIRST_DAY; epochDay <= LAST_DAY; epochDay++) {
+				if (epochDay == endDay) {
+					assertEquals(bucket + 1, unit.getBucket(epochDay));
+					assertEquals(epochDay, unit.getFirstDay(bucket + 1));
+					bucket++;
+					endDay = unit.getEndDay(bucket);
+				}
+				assertEquals(bucket, unit.getBucket(epochDay));
+				assertTrue(endDay > epochDay);
+			}
+		}
+	}
+
+	@Test
+	public void testLeapDays() {
+		assertEquals(2000 * 12L + 1, CalendarUnit.MONTH.getBucket(LocalDate.of(2000, 2, 29).toEpochDay()));
+		assertEquals(LocalDate.of(2000, 3, 1).toEpochDay(), CalendarUnit.MONTH.getEndDay(2000 * 12L + 1));
+		assertEquals(LocalDate.of(1900, 3, 1).toEpochDay(), CalendarUnit.MONTH.getEndDay(1900 * 12L + 1));
+		assertEquals(28, CalendarUnit.MONTH.getEndDay(1900 * 12L + 1) - CalendarUnit.MONTH.getFirstDay(1900 * 12L + 1));
+	}
+
+	@Test
+	public void testEpochDayOfLocalMillis() {
+		assertEquals(0, CalendarUnit.toEpochDay(0));
+		assertEquals(-1, CalendarUnit.toEpochDay(-1));
+		assertEquals(1, CalendarUnit.toEpochDay(CalendarUnit.MILLIS_PER_DAY));
+	}
+
+	@Test
+	public void testZoneOffsetCacheMatchesZoneRules() {
+		ZoneId zoneId = ZoneId.of("Europe/Berlin");
+		ZoneOffsetCache offsetCache = new ZoneOffsetCache(zoneId);
+		long start = LocalDate.of(2019, 1, 1).atStartOfDay(zoneId).toInstant().toEpochMilli();
+		long end = LocalDate.of(2022, 1, 1).atStartOfDay(zoneId).toInstant().toEpochMilli();
+		for (long epochMillis = start; epochMillis < end; epochMillis += 15 * 60_000L + 17) {
+			ZonedDateTime dateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zoneId);
+			long localMillis = dateTime.toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+			assertEquals(localMillis, offsetCache.toLocalMillis(epochMillis));
+			assertEquals(dateTime.toLocalDate().toEpochDay(), CalendarUnit.toEpochDay(offsetCache.toLocalMillis(epochMillis)));
+		}
+	}
+
+	private static long firstDay(CalendarUnit unit, long epochDay) {
+		return unit.getFirstDay(unit.getBucket(epochDay));
+	}
+}
@@ -0,0 +1,130 @@
+/*-
+ * ========================LICENSE_START=================================
+ * TeamApps.org UniversalDB Integration
+ * ---
+ * Copyright (C) 2020 - 2021 TeamApps.org
+ * ---
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.teamapps.udb.time;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teamapps.udb.recordset.RecordSet;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimestampIndexTest {
+
+	private static final int SIZE = 10_000;
+
+	private long[] timestamps;
+	private TimestampIndex timestampIndex;
+
+	@Before
+	public void setUp() {
+		Random random = new Random(17);
+		timestamps = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			timestamps[i] = 1_600_000_000_000L + random.nextInt(1_000_000) * 1_000L;
+		}
+		timestampIndex = new TimestampIndex(null, null, false, id -> timestamps[id]);
+	}
+
+	@Test
+	public void testFilterMatchesScan() {
+		RecordSet records = createRecords(0, 1);
+		Random random = new Random(19);
+		for (int i = 0; i < 50; i++) {
+			long start = 1_600_000_000_000L + random.nextInt(1_000_000) * 1_000L;
+			long end = start + random.nextInt(100_000) * 1_000L;
+			assertEquals(scan(records, start, end), timestampIndex.filter(records, start, end));
+		}
+		assertEquals(SIZE, timestampIndex.getIndexedRecordCount());
+	}
+
+	@Test
+	public void testBoundsAreInclusive() {
+		RecordSet records = createRecords(0, 1);
+		long timestamp = timestamps[42];
+		BitSet result = timestampIndex.filter(records, timestamp, timestamp);
+		assertEquals(scan(records, timestamp, timestamp), result);
+		assertTrue(result.get(42));
+	}
+
+	@Test
+	public void testFilterIsRestrictedToRecords() {
+		RecordSet evenRecords = createRecords(0, 2);
+		RecordSet thirdRecords = createRecords(1, 3);
+		long start = 1_600_100_000_000L;
+		long end = 1_600_600_000_000L;
+		assertEquals(scan(evenRecords, start, end), timestampIndex.filter(evenRecords, start, end));
+		assertEquals(evenRecords.cardinality(), timestampIndex.getIndexedRecordCount());
+		assertEquals(scan(thirdRecords, start, end), timestampIndex.filter(thirdRecords, start, end));
+		assertEquals(scan(evenRecords, start, end), timestampIndex.filter(evenRecords, start, end));
+	}
+
+	@Test
+	public void testChangedRecordsAreReindexed() {
+		RecordSet records = createRecords(0, 1);
+		long start = 1_600_100_000_000L;
+		long end = 1_600_200_000_000L;
+		timestampIndex.filter(records, start, end);
+		timestamps[7] = start;
+		timestamps[8] = end + 1;
+		timestampIndex.handleRecordChanged(7);
+		timestampIndex.handleRecordChanged(8);
+		assertEquals(SIZE - 2, timestampIndex.getIndexedRecordCount());
+		BitSet result = timestampIndex.filter(records, start, end);
+		assertEquals(scan(records, start, end), result);
+		assertTrue(result.get(7));
+		assertFalse(result.get(8));
+		assertEquals(SIZE, timestampIndex.getIndexedRecordCount());
+		assertEquals(result, timestampIndex.filter(records, start, end));
+	}
+
+	@Test
+	public void testSecondsColumn() {
+		int[] seconds = new int[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			seconds[i] = (int) (timestamps[i] / 1000);
+		}
+		TimestampIndex secondsIndex = new TimestampIndex(null, null, true, id -> seconds[id]);
+		RecordSet records = createRecords(0, 1);
+		long start = 1_600_100_000_000L;
+		long end = 1_600_200_000_999L;
+		assertEquals(scan(records, start, end), secondsIndex.filter(records, start, end));
+	}
+
+	private BitSet scan(RecordSet records, long start, long end) {
+		BitSet result = new BitSet();
+		records.toBitSet().stream()
+				.filter(id -> timestamps[id] >= start && timestamps[id] <= end)
+				.forEach(result::set);
+		return result;
+	}
+
+	private static RecordSet createRecords(int offset, int step) {
+		BitSet bitSet = new BitSet();
+		for (int id = offset; id < SIZE; id += step) {
+			bitSet.set(id);
+		}
+		return RecordSet.of(bitSet);
+	}
+}